@@ -0,0 +1,78 @@
+package castle.comp3021.assignment.benchmarks;
+
+import castle.comp3021.assignment.protocol.IntMoveList;
+import castle.comp3021.assignment.protocol.Move;
+import castle.comp3021.assignment.protocol.PackedMove;
+import castle.comp3021.assignment.protocol.Player;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the rules of the game: move generation, making and unmaking moves, move validation and checking the
+ * winner.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+    /**
+     * Generate the available moves and convert them to {@link Move} objects, without the cache of legal moves of the
+     * game, which would turn every invocation after the first into a cache hit
+     */
+    @Benchmark
+    public Move[] getAvailableMoves(PositionState state) {
+        state.game.getAvailableMoves(state.player, state.moves);
+        return state.game.toMoves(state.moves);
+    }
+
+    /**
+     * Generate the available moves encoded by {@link PackedMove}, without allocating
+     */
+    @Benchmark
+    public IntMoveList generateMoves(PositionState state) {
+        state.game.getAvailableMoves(state.player, state.moves);
+        return state.moves;
+    }
+
+    /**
+     * Get the available moves of a position whose legal moves are already cached
+     */
+    @Benchmark
+    public Move[] getCachedAvailableMoves(PositionState state) {
+        return state.game.getAvailableMoves(state.player);
+    }
+
+    /**
+     * Make and unmake every available move, as a search does at each node
+     */
+    @Benchmark
+    public long makeUnmakeMoves(PositionState state) {
+        state.game.getAvailableMoves(state.player, state.moves);
+        var keys = 0L;
+        for (int i = 0; i < state.moves.size(); i++) {
+            state.game.makeMove(state.moves.get(i));
+            keys ^= state.game.getPositionKey();
+            state.game.unmakeMove();
+        }
+        return keys;
+    }
+
+    /**
+     * Validate every available move and as many invalid moves
+     */
+    @Benchmark
+    public void validateMove(PositionState state, Blackhole blackhole) {
+        for (var move : state.candidateMoves) {
+            blackhole.consume(state.player.validateMove(state.game, move));
+        }
+    }
+
+    @Benchmark
+    public Player getWinner(PositionState state) {
+        return state.game.getWinner(state.lastPlayer, state.lastPiece, state.lastMove);
+    }
+}
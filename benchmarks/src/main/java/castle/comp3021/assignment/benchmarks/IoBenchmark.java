@@ -0,0 +1,48 @@
+package castle.comp3021.assignment.benchmarks;
+
+import castle.comp3021.assignment.protocol.io.Deserializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of saving and loading games.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IoBenchmark {
+    /**
+     * File containing the game of the position
+     */
+    private Path savedGame;
+
+    @Setup(Level.Trial)
+    public void setUp(PositionState state) throws IOException {
+        savedGame = Files.createTempFile("jesonmor-benchmark", ".txt");
+        Files.writeString(savedGame, state.game.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(savedGame);
+    }
+
+    @Benchmark
+    public String gameToString(PositionState state) {
+        return state.game.toString();
+    }
+
+    @Benchmark
+    public Deserializer parseGame() throws IOException {
+        var deserializer = new Deserializer(savedGame);
+        deserializer.parseGame();
+        return deserializer;
+    }
+}
@@ -0,0 +1,30 @@
+package castle.comp3021.assignment.benchmarks;
+
+import castle.comp3021.assignment.player.SmartRandomPlayer;
+import castle.comp3021.assignment.protocol.Move;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of computer players choosing a move.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlayerBenchmark {
+    private SmartRandomPlayer smartRandomPlayer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        smartRandomPlayer = new SmartRandomPlayer("Smart");
+    }
+
+    @Benchmark
+    public Move smartRandomNextMove(PositionState state) {
+        return smartRandomPlayer.nextMove(state.game, state.availableMoves);
+    }
+}
@@ -0,0 +1,150 @@
+package castle.comp3021.assignment.benchmarks;
+
+import castle.comp3021.assignment.player.RandomPlayer;
+import castle.comp3021.assignment.protocol.*;
+import castle.comp3021.assignment.tools.HeadlessJesonMor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * A game position shared by the benchmarks, for each board size and stage of the game.
+ * <p>
+ * Positions are reached by random moves from the initial board of {@link Configuration#setAllInitialPieces()}, with
+ * a fixed seed so that every run measures the same positions. Moves that would end the game are never chosen.
+ */
+@State(Scope.Benchmark)
+public class PositionState {
+    /**
+     * Stage of the game
+     */
+    public enum Stage {
+        /**
+         * Two moves after the start
+         */
+        OPENING,
+        /**
+         * Twice as many moves after the start as the size of the board
+         */
+        MIDGAME,
+        /**
+         * Captures are preferred until at most a quarter of the pieces are left
+         */
+        ENDGAME,
+    }
+
+    private static final long SEED = 3021;
+
+    @Param({"5", "9", "15", "25"})
+    public int size;
+
+    @Param({"OPENING", "MIDGAME", "ENDGAME"})
+    public Stage stage;
+
+    public HeadlessJesonMor game;
+
+    /**
+     * The player to move
+     */
+    public Player player;
+
+    /**
+     * Available moves of the player to move
+     */
+    public Move[] availableMoves;
+
+    /**
+     * Available moves of the player to move, and as many moves of its pieces to random places
+     */
+    public Move[] candidateMoves;
+
+    /**
+     * List reused by benchmarks that generate moves without allocating
+     */
+    public final IntMoveList moves = new IntMoveList();
+
+    /**
+     * The last move, which was made by {@link PositionState#lastPlayer} with {@link PositionState#lastPiece}
+     */
+    public Move lastMove;
+
+    public Player lastPlayer;
+
+    public Piece lastPiece;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var random = new Random(SEED);
+        var players = new Player[]{new RandomPlayer("White"), new RandomPlayer("Black")};
+        var configuration = new Configuration(size, players, 1);
+        configuration.setAllInitialPieces();
+        game = new HeadlessJesonMor(configuration, HeadlessJesonMor.NO_MOVE_LIMIT);
+
+        var numPieces = countPieces();
+        var plies = switch (stage) {
+            case OPENING -> 2;
+            case MIDGAME -> 2 * size;
+            case ENDGAME -> Integer.MAX_VALUE;
+        };
+        for (int ply = 0; ply < plies; ply++) {
+            if (stage == Stage.ENDGAME && countPieces() <= numPieces / 4) {
+                break;
+            }
+            var move = this.chooseMove(random, stage == Stage.ENDGAME);
+            if (move == null) {
+                break;
+            }
+            lastPlayer = game.getCurrentPlayer();
+            lastPiece = game.getPiece(move.getSource());
+            lastMove = move;
+            game.playMove(move);
+        }
+
+        player = game.getCurrentPlayer();
+        availableMoves = game.getAvailableMoves(player);
+        var candidates = new ArrayList<Move>();
+        for (var move : availableMoves) {
+            candidates.add(move);
+            candidates.add(new Move(move.getSource(), Place.of(random.nextInt(size), random.nextInt(size))));
+        }
+        candidateMoves = candidates.toArray(new Move[0]);
+    }
+
+    /**
+     * Choose a random move that does not end the game
+     *
+     * @param preferCaptures whether captures are chosen whenever there is one
+     * @return the move, or null if every move ends the game
+     */
+    private Move chooseMove(Random random, boolean preferCaptures) {
+        var moves = new IntMoveList();
+        game.getAvailableMoves(game.getCurrentPlayer(), moves);
+        var captures = new IntMoveList();
+        var quietMoves = new IntMoveList();
+        for (int i = 0; i < moves.size(); i++) {
+            var move = moves.get(i);
+            game.makeMove(move);
+            var endsGame = game.getWinnerIndex(move) >= 0;
+            game.unmakeMove();
+            if (!endsGame) {
+                (PackedMove.isCapture(move) ? captures : quietMoves).add(move);
+            }
+        }
+        if (preferCaptures && !captures.isEmpty()) {
+            return game.toMove(captures.get(random.nextInt(captures.size())));
+        }
+        for (int i = 0; i < captures.size(); i++) {
+            quietMoves.add(captures.get(i));
+        }
+        if (quietMoves.isEmpty()) {
+            return null;
+        }
+        return game.toMove(quietMoves.get(random.nextInt(quietMoves.size())));
+    }
+
+    private int countPieces() {
+        var bitboard = game.getBitboard();
+        return bitboard.count(0) + bitboard.count(1);
+    }
+}
@@ -36,7 +36,7 @@ public class FXJesonMor extends JesonMor {
         }
         this.configuration.setAllInitialPieces();
         this.durationTimer = new DurationTimer();
-        this.board = this.configuration.getInitialBoard();
+        this.setBoard(this.configuration.getInitialBoard());
     }
 
     /**
@@ -29,6 +29,11 @@ import javafx.scene.text.Text;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 /**
  * This class implements the main playing function of Jeson Mor
@@ -52,6 +57,17 @@ import java.io.IOException;
  */
 
 public class GamePlayPane extends BasePane {
+    /**
+     * Threads computing the moves of computer players, so that the UI thread is never blocked by a search.
+     * Each move is computed on its own thread, so that a cancelled computation that has not stopped yet does not
+     * delay the next one.
+     */
+    private static final ExecutorService COMPUTER_THREADS = Executors.newCachedThreadPool(runnable -> {
+        var thread = new Thread(runnable, "computer-player");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     @NotNull
     private final HBox topBar = new HBox(20);
     @NotNull
@@ -99,6 +115,10 @@ public class GamePlayPane extends BasePane {
     private Player winner = null;
     private Place moveSource = null;
     private Place moveDest = null;
+    /**
+     * The move being computed by a computer player on {@link GamePlayPane#COMPUTER_THREADS}, or null
+     */
+    private Future<Move> computerMove = null;
 
     public GamePlayPane() {
         connectComponents();
@@ -230,12 +250,14 @@ public class GamePlayPane extends BasePane {
      */
     public void startGame() {
         //TODO
-        if (this.game == null || this.winner != null) {
+        // a computer player is still choosing its move
+        if (this.game == null || this.winner != null || this.computerMove != null) {
             return;
         }
         Player currentPlayer = game.getCurrentPlayer();
-        Move[] availableMoves = game.getAvailableMoves(currentPlayer);
-        if (availableMoves.length <= 0) {
+        // computed once per position, not on every tick
+        LegalMoves legalMoves = game.getLegalMoves(currentPlayer);
+        if (legalMoves.size() <= 0) {
             Platform.runLater(() -> this.showInvalidMoveMsg("No available moves for the player " + currentPlayer.getName()));
             Player[] players = game.getConfiguration().getPlayers();
             int player1Score = players[0].getScore();
@@ -248,46 +270,118 @@ public class GamePlayPane extends BasePane {
                 this.winner = currentPlayer;
             }
         } else if (this.winner == null) {
-            Move nextMove = null;
             if (currentPlayer instanceof ConsolePlayer) {
                 this.enableCanvas();
                 if (this.moveSource != null && this.moveDest != null) {
-                    nextMove = new Move(moveSource, moveDest);
+                    Move nextMove = new Move(moveSource, moveDest);
                     this.moveSource = null;
                     this.moveDest = null;
                     this.disnableCanvas();
+                    this.playMove(currentPlayer, legalMoves, nextMove);
                 }
             } else {
                 this.disnableCanvas();
-                nextMove = currentPlayer.nextMove(game, availableMoves);
+                this.computeMove(currentPlayer, legalMoves);
             }
-            if (nextMove != null) {
-                Piece nextPiece = game.getPiece(nextMove.getSource());
-                if (nextPiece == null) {
-                    this.showInvalidMoveMsg("the source of move should have a piece");
-                } else if (!(nextPiece.getPlayer().equals(currentPlayer))) {
-                    this.showInvalidMoveMsg("The piece you moved does not belong to you!");
-                } else {
-                    String ruleViolationReason = currentPlayer.validateMove(game, nextMove);
-                    if (ruleViolationReason != null) {
-                        this.showInvalidMoveMsg(ruleViolationReason);
-                    } else {
-                        AudioManager.getInstance().playSound(AudioManager.SoundRes.PLACE);
-                        Piece nextMovePiece = game.getPiece(nextMove.getSource());
-                        this.game.movePiece(nextMove);
-                        this.game.switchPlayer();
-                        this.ticksElapsed.set(0);
-                        this.game.updateScore(currentPlayer, nextMovePiece, nextMove);
-                        this.winner = game.getWinner(currentPlayer, nextMovePiece, nextMove);
-                        this.updateHistoryField(nextMove);
-                        this.game.renderBoard(gamePlayCanvas);
-                    }
-                }
+        }
+        this.checkWinner();
+    }
+
+    /**
+     * Let a computer player choose its move on {@link GamePlayPane#COMPUTER_THREADS}, with a snapshot of the game.
+     * The move is played on the UI thread once it is chosen, unless the computation has been cancelled by
+     * {@link GamePlayPane#cancelComputerMove()} in the meantime.
+     *
+     * @param currentPlayer the computer player
+     * @param legalMoves    available moves of the player
+     */
+    private void computeMove(Player currentPlayer, LegalMoves legalMoves) {
+        Game snapshot;
+        try {
+            snapshot = game.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        Move[] availableMoves = legalMoves.toMoves();
+        var task = new FutureTask<>(() -> currentPlayer.nextMove(snapshot, availableMoves)) {
+            @Override
+            protected void done() {
+                Platform.runLater(() -> onMoveComputed(this, currentPlayer, legalMoves));
             }
+        };
+        this.computerMove = task;
+        COMPUTER_THREADS.execute(task);
+    }
+
+    /**
+     * Play the move chosen by a computer player, on the UI thread
+     *
+     * @param task          the finished computation
+     * @param currentPlayer the computer player
+     * @param legalMoves    available moves of the player
+     */
+    private void onMoveComputed(Future<Move> task, Player currentPlayer, LegalMoves legalMoves) {
+        if (this.computerMove != task || task.isCancelled()) {
+            return;
+        }
+        this.computerMove = null;
+        Move nextMove;
+        try {
+            nextMove = task.get();
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+            this.showInvalidMoveMsg("The computer player failed to choose a move");
+            return;
         }
+        this.playMove(currentPlayer, legalMoves, nextMove);
         this.checkWinner();
     }
 
+    /**
+     * Stop the move being computed by a computer player, if any, by interrupting its thread (see
+     * {@link Player#nextMove(Game, Move[])}); its result is ignored
+     */
+    private void cancelComputerMove() {
+        if (this.computerMove == null) {
+            return;
+        }
+        this.computerMove.cancel(true);
+        this.computerMove = null;
+    }
+
+    /**
+     * Check a move of the current player, and make it if it is valid
+     *
+     * @param currentPlayer the current player
+     * @param legalMoves    available moves of the player
+     * @param nextMove      the move chosen by the player
+     */
+    private void playMove(Player currentPlayer, LegalMoves legalMoves, Move nextMove) {
+        Piece nextPiece = game.getPiece(nextMove.getSource());
+        if (nextPiece == null) {
+            this.showInvalidMoveMsg("the source of move should have a piece");
+        } else if (!(nextPiece.getPlayer().equals(currentPlayer))) {
+            this.showInvalidMoveMsg("The piece you moved does not belong to you!");
+        } else {
+            // the rules are only checked for the reason why a move is not available
+            String ruleViolationReason = legalMoves.isLegal(nextMove)
+                    ? null : currentPlayer.validateMove(game, nextMove);
+            if (ruleViolationReason != null) {
+                this.showInvalidMoveMsg(ruleViolationReason);
+            } else {
+                AudioManager.getInstance().playSound(AudioManager.SoundRes.PLACE);
+                Piece nextMovePiece = game.getPiece(nextMove.getSource());
+                this.game.movePiece(nextMove);
+                this.game.switchPlayer();
+                this.ticksElapsed.set(0);
+                this.game.updateScore(currentPlayer, nextMovePiece, nextMove);
+                this.winner = game.getWinner(currentPlayer, nextMovePiece, nextMove);
+                this.updateHistoryField(nextMove);
+                this.game.renderBoard(gamePlayCanvas);
+            }
+        }
+    }
+
     /**
      * Restart the game
      * Hint: end the current game and start a new game
@@ -325,7 +419,7 @@ public class GamePlayPane extends BasePane {
         int x = toBoardCoordinate(event.getX());
         int y = toBoardCoordinate(event.getY());
         Renderer.drawRectangle(gamePlayCanvas.getGraphicsContext2D(), x, y);
-        this.moveSource = new Place(x, y);
+        this.moveSource = Place.of(x, y);
     }
 
     /**
@@ -354,7 +448,7 @@ public class GamePlayPane extends BasePane {
         // TODO
         int x = toBoardCoordinate(event.getX());
         int y = toBoardCoordinate(event.getY());
-        this.moveDest = new Place(x, y);
+        this.moveDest = Place.of(x, y);
         this.game.renderBoard(gamePlayCanvas);
         this.startGame();
     }
@@ -368,6 +462,7 @@ public class GamePlayPane extends BasePane {
             Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
             alert.setTitle("Sorry! Time's out!");
             alert.setContentText(game.getCurrentPlayer().getName() + " Lose!");
+            this.cancelComputerMove();
             Platform.runLater(() -> this.onGameEndAlert(alert));
             Platform.runLater(() -> this.ticksElapsed.set(0));
             this.game.stopCountdown();
@@ -514,8 +609,12 @@ public class GamePlayPane extends BasePane {
      */
     private void endGame() {
         //TODO
+        this.cancelComputerMove();
         if (this.game != null) {
             this.game.stopCountdown();
+            for (Player player : this.game.getConfiguration().getPlayers()) {
+                player.onGameEnd();
+            }
         }
         this.disnableCanvas();
         this.gamePlayCanvas.getGraphicsContext2D().clearRect(0, 0
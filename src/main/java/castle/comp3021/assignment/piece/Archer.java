@@ -1,7 +1,10 @@
 package castle.comp3021.assignment.piece;
 
+import castle.comp3021.assignment.protocol.Bitboard;
 import castle.comp3021.assignment.protocol.Game;
+import castle.comp3021.assignment.protocol.IntMoveList;
 import castle.comp3021.assignment.protocol.Move;
+import castle.comp3021.assignment.protocol.PackedMove;
 import castle.comp3021.assignment.protocol.Piece;
 import castle.comp3021.assignment.protocol.Place;
 import castle.comp3021.assignment.protocol.Player;
@@ -9,8 +12,6 @@ import castle.comp3021.assignment.gui.controllers.Renderer;
 import castle.comp3021.assignment.gui.controllers.ResourceLoader;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-
 /**
  * Archer piece that moves similar to cannon in chinese chess.
  * Rules of move of Archer can be found in wikipedia (https://en.wikipedia.org/wiki/Xiangqi#Cannon).
@@ -27,41 +28,62 @@ public class Archer extends Piece {
         return 'A';
     }
 
+    /**
+     * Directions in which an archer moves, as (x, y) steps
+     */
+    private static final int[][] DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+
     @Override
     public Move[] getAvailableMoves(Game game, Place source) {
-        var moves = new ArrayList<Move>();
-        for (int x = 0; x < game.getConfiguration().getSize(); x++) {
-            if (x != source.x()) {
-                moves.add(new Move(source, x, source.y()));
-            }
-        }
-        for (int y = 0; y < game.getConfiguration().getSize(); y++) {
-            if (y != source.y()) {
-                moves.add(new Move(source, source.x(), y));
-            }
-        }
-
-        return moves.stream()
-                .filter(move -> validateMove(game, move))
-                .toArray(Move[]::new);
+        var moves = new IntMoveList(4 * game.getConfiguration().getSize());
+        this.generateMoves(game, game.getBitboard().square(source.x(), source.y()), moves);
+        return game.toMoves(moves);
     }
 
-    private boolean validateMove(Game game, Move move) {
-        var rules = new Rule[]{
-                new OutOfBoundaryRule(),
-                new OccupiedRule(),
-                new VacantRule(),
-                new NilMoveRule(),
-                new FirstNMovesProtectionRule(game.getConfiguration().getNumMovesProtection()),
-                new ArcherMoveRule(),
-        };
-        for (var rule :
-                rules) {
-            if (!rule.validate(game, move)) {
-                return false;
+    /**
+     * Generate moves by walking outwards from the source in each direction.
+     * The archer can move to every empty place before the first piece (the screen) on its way, and can capture the
+     * first piece behind the screen if it belongs to the other player.
+     *
+     * @param game   the game object
+     * @param source the square index of the current place of the piece
+     * @param moves  the list to append moves to
+     */
+    @Override
+    public void generateMoves(Game game, int source, IntMoveList moves) {
+        var bitboard = game.getBitboard();
+        var size = bitboard.getSize();
+        var player = game.getPlayerIndex(this.getPlayer());
+        var opponent = 1 - player;
+        var canCapture = game.getNumMoves() >= game.getConfiguration().getNumMovesProtection();
+        var sourceX = bitboard.x(source);
+        var sourceY = bitboard.y(source);
+        for (var direction : DIRECTIONS) {
+            var x = sourceX + direction[0];
+            var y = sourceY + direction[1];
+            while (x >= 0 && x < size && y >= 0 && y < size && !bitboard.isOccupied(bitboard.square(x, y))) {
+                moves.add(PackedMove.of(source, bitboard.square(x, y)));
+                x += direction[0];
+                y += direction[1];
+            }
+            if (!canCapture) {
+                continue;
+            }
+            // (x, y) is now the screen, if it is inside the board
+            x += direction[0];
+            y += direction[1];
+            while (x >= 0 && x < size && y >= 0 && y < size && !bitboard.isOccupied(bitboard.square(x, y))) {
+                x += direction[0];
+                y += direction[1];
+            }
+            if (x >= 0 && x < size && y >= 0 && y < size) {
+                var target = bitboard.square(x, y);
+                if (bitboard.isOccupiedBy(target, opponent)) {
+                    moves.add(PackedMove.capture(source, target,
+                            bitboard.has(target, opponent, Bitboard.KNIGHT) ? Bitboard.KNIGHT : Bitboard.ARCHER));
+                }
             }
         }
-        return true;
     }
 
     /**
@@ -2,6 +2,7 @@ package castle.comp3021.assignment.piece;
 
 import castle.comp3021.assignment.protocol.Game;
 import castle.comp3021.assignment.protocol.Move;
+import castle.comp3021.assignment.protocol.Piece;
 
 /**
  * The rule of moving of Archer, which is similar to the moving rule of cannon in Chinese chess.
@@ -11,17 +12,17 @@ import castle.comp3021.assignment.protocol.Move;
 public class ArcherMoveRule implements Rule {
     @Override
     public boolean validate(Game game, Move move) {
-        if (!(game.getPiece(move.getSource()) instanceof Archer)) {
+        return this.validate(game, move, game.getPiece(move.getSource()), game.getPiece(move.getDestination()));
+    }
+
+    @Override
+    public boolean validate(Game game, Move move, Piece sourcePiece, Piece captured) {
+        if (!(sourcePiece instanceof Archer)) {
             return true;
         }
         var source = move.getSource();
         var destination = move.getDestination();
         var isCapturing = false;
-        var sourcePiece = game.getPiece(move.getSource());
-        if (sourcePiece == null) {
-            return true;
-        }
-        var captured = game.getPiece(move.getDestination());
         if (captured != null) {
             if (captured.getPlayer().equals(sourcePiece.getPlayer())) {
                 return true;
@@ -74,6 +75,11 @@ public class ArcherMoveRule implements Rule {
         }
     }
 
+    @Override
+    public boolean appliesTo(Class<? extends Piece> pieceType) {
+        return pieceType != null && Archer.class.isAssignableFrom(pieceType);
+    }
+
     @Override
     public String getDescription() {
         return "archer move rule is violated";
@@ -2,6 +2,7 @@ package castle.comp3021.assignment.piece;
 
 import castle.comp3021.assignment.protocol.Game;
 import castle.comp3021.assignment.protocol.Move;
+import castle.comp3021.assignment.protocol.Piece;
 
 /**
  * The rule that requires capturing piece is not allowed within the first certain number of moves.
@@ -18,8 +19,12 @@ public class FirstNMovesProtectionRule implements Rule {
 
     @Override
     public boolean validate(Game game, Move move) {
-        var destination = move.getDestination();
-        if (game.getPiece(destination) != null) {
+        return this.validate(game, move, null, game.getPiece(move.getDestination()));
+    }
+
+    @Override
+    public boolean validate(Game game, Move move, Piece sourcePiece, Piece destinationPiece) {
+        if (destinationPiece != null) {
             return game.getNumMoves() >= this.numProtectedMoves;
         }
         return true;
@@ -1,7 +1,10 @@
 package castle.comp3021.assignment.piece;
 
+import castle.comp3021.assignment.protocol.Bitboard;
 import castle.comp3021.assignment.protocol.Game;
+import castle.comp3021.assignment.protocol.IntMoveList;
 import castle.comp3021.assignment.protocol.Move;
+import castle.comp3021.assignment.protocol.PackedMove;
 import castle.comp3021.assignment.protocol.Piece;
 import castle.comp3021.assignment.protocol.Place;
 import castle.comp3021.assignment.protocol.Player;
@@ -9,8 +12,6 @@ import castle.comp3021.assignment.gui.controllers.Renderer;
 import castle.comp3021.assignment.gui.controllers.ResourceLoader;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-
 /**
  * Knight piece that moves similar to knight in chess.
  * Rules of move of Knight can be found in wikipedia (https://en.wikipedia.org/wiki/Knight_(chess)).
@@ -31,40 +32,30 @@ public class Knight extends Piece {
 
     @Override
     public Move[] getAvailableMoves(Game game, Place source) {
-        var moves = new ArrayList<Move>();
-        var steps = new int[]{1, -1, 2, -2};
-        for (var stepX :
-                steps) {
-            for (var stepY :
-                    steps) {
-                var destination = new Place(source.x() + stepX, source.y() + stepY);
-                if (Math.abs(destination.x() - source.x()) + Math.abs(destination.y() - source.y()) == 3) {
-                    moves.add(new Move(source, destination));
-                }
-            }
-        }
-        return moves.stream()
-                .filter(move -> validateMove(game, move))
-                .toArray(Move[]::new);
+        var moves = new IntMoveList(8);
+        this.generateMoves(game, game.getBitboard().square(source.x(), source.y()), moves);
+        return game.toMoves(moves);
     }
 
-    private boolean validateMove(Game game, Move move) {
-        var rules = new Rule[]{
-                new OutOfBoundaryRule(),
-                new OccupiedRule(),
-                new VacantRule(),
-                new NilMoveRule(),
-                new FirstNMovesProtectionRule(game.getConfiguration().getNumMovesProtection()),
-                new KnightMoveRule(),
-                new KnightBlockRule(),
-        };
-        for (var rule :
-                rules) {
-            if (!rule.validate(game, move)) {
-                return false;
+    @Override
+    public void generateMoves(Game game, int source, IntMoveList moves) {
+        var bitboard = game.getBitboard();
+        var table = KnightMoveTable.forSize(bitboard.getSize());
+        var player = game.getPlayerIndex(this.getPlayer());
+        var opponent = 1 - player;
+        var canCapture = game.getNumMoves() >= game.getConfiguration().getNumMovesProtection();
+        for (int i = table.begin(source); i < table.end(source); i++) {
+            var target = table.target(i);
+            if (bitboard.isOccupied(table.block(i)) || bitboard.isOccupiedBy(target, player)) {
+                continue;
+            }
+            if (!bitboard.isOccupied(target)) {
+                moves.add(PackedMove.of(source, target));
+            } else if (canCapture) {
+                moves.add(PackedMove.capture(source, target,
+                        bitboard.has(target, opponent, Bitboard.KNIGHT) ? Bitboard.KNIGHT : Bitboard.ARCHER));
             }
         }
-        return true;
     }
 
     /**
@@ -2,7 +2,7 @@ package castle.comp3021.assignment.piece;
 
 import castle.comp3021.assignment.protocol.Game;
 import castle.comp3021.assignment.protocol.Move;
-import castle.comp3021.assignment.protocol.Place;
+import castle.comp3021.assignment.protocol.Piece;
 
 /**
  * The blocking rule applying on Knights. The rule is similar to the blocking rule for horse in Chinese chess.
@@ -12,24 +12,32 @@ import castle.comp3021.assignment.protocol.Place;
 public class KnightBlockRule implements Rule {
     @Override
     public boolean validate(Game game, Move move) {
-        if (!(game.getPiece(move.getSource()) instanceof Knight)) {
+        return this.validate(game, move, game.getPiece(move.getSource()), null);
+    }
+
+    @Override
+    public boolean validate(Game game, Move move, Piece sourcePiece, Piece destinationPiece) {
+        if (!(sourcePiece instanceof Knight)) {
             return true;
         }
         var source = move.getSource();
         var destination = move.getDestination();
         if (Math.abs(source.x() - destination.x()) == 2) {
-            var blockPlace = new Place((source.x() + destination.x()) / 2, source.y());
             // some other piece is at the block place of knight
-            return game.getPiece(blockPlace) == null;
+            return game.getPiece((source.x() + destination.x()) / 2, source.y()) == null;
         } else if (Math.abs(source.y() - destination.y()) == 2) {
-            var blockPlace = new Place(source.x(), (source.y() + destination.y()) / 2);
             // some other piece is at the block place of knight
-            return game.getPiece(blockPlace) == null;
+            return game.getPiece(source.x(), (source.y() + destination.y()) / 2) == null;
         } else {
             return false;
         }
     }
 
+    @Override
+    public boolean appliesTo(Class<? extends Piece> pieceType) {
+        return pieceType != null && Knight.class.isAssignableFrom(pieceType);
+    }
+
     @Override
     public String getDescription() {
         return "knight is blocked by another piece";
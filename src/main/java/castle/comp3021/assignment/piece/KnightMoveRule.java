@@ -2,6 +2,7 @@ package castle.comp3021.assignment.piece;
 
 import castle.comp3021.assignment.protocol.Game;
 import castle.comp3021.assignment.protocol.Move;
+import castle.comp3021.assignment.protocol.Piece;
 
 /**
  * Moving rule of Knight in chess (no block)
@@ -10,7 +11,12 @@ public class KnightMoveRule implements Rule {
 
     @Override
     public boolean validate(Game game, Move move) {
-        if (!(game.getPiece(move.getSource()) instanceof Knight)) {
+        return this.validate(game, move, game.getPiece(move.getSource()), null);
+    }
+
+    @Override
+    public boolean validate(Game game, Move move, Piece sourcePiece, Piece destinationPiece) {
+        if (!(sourcePiece instanceof Knight)) {
             return true;
         }
         var source = move.getSource();
@@ -19,6 +25,11 @@ public class KnightMoveRule implements Rule {
                 Math.abs(destination.x() - source.x()) == 1 && Math.abs(destination.y() - source.y()) == 2;
     }
 
+    @Override
+    public boolean appliesTo(Class<? extends Piece> pieceType) {
+        return pieceType != null && Knight.class.isAssignableFrom(pieceType);
+    }
+
     @Override
     public String getDescription() {
         return "knight move rule is violated";
@@ -0,0 +1,132 @@
+package castle.comp3021.assignment.piece;
+
+import castle.comp3021.assignment.protocol.Bitboard;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed knight moves for one board size.
+ * <p>
+ * For every square (indexed as in {@link Bitboard}), the table lists all in-board knight destinations together with
+ * the square that blocks each of them (see {@link KnightBlockRule}). The destinations of a square are stored in
+ * {@code targets[offsets[square]]} to {@code targets[offsets[square + 1] - 1]}, and the matching block squares at the
+ * same indices of {@code blocks}.
+ * <p>
+ * Tables for every size accepted by {@link castle.comp3021.assignment.protocol.Configuration} are built once when
+ * this class is loaded.
+ */
+public final class KnightMoveTable {
+    /**
+     * Smallest board size
+     */
+    private static final int MIN_SIZE = 3;
+
+    /**
+     * Largest odd board size
+     */
+    private static final int MAX_SIZE = 25;
+
+    /**
+     * Knight steps, in the same order as candidate moves were proposed by {@link Knight}
+     */
+    private static final int[][] STEPS = {
+            {1, 2}, {1, -2}, {-1, 2}, {-1, -2},
+            {2, 1}, {2, -1}, {-2, 1}, {-2, -1},
+    };
+
+    private static final KnightMoveTable[] TABLES = new KnightMoveTable[MAX_SIZE + 1];
+
+    static {
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size += 2) {
+            TABLES[size] = new KnightMoveTable(size);
+        }
+    }
+
+    private final int size;
+
+    private final int[] offsets;
+
+    private final int[] targets;
+
+    private final int[] blocks;
+
+    private KnightMoveTable(int size) {
+        this.size = size;
+        var numSquares = size * size;
+        var targets = new int[numSquares * STEPS.length];
+        var blocks = new int[numSquares * STEPS.length];
+        this.offsets = new int[numSquares + 1];
+        var count = 0;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                offsets[x * size + y] = count;
+                for (var step : STEPS) {
+                    var destinationX = x + step[0];
+                    var destinationY = y + step[1];
+                    if (destinationX < 0 || destinationX >= size || destinationY < 0 || destinationY >= size) {
+                        continue;
+                    }
+                    targets[count] = destinationX * size + destinationY;
+                    if (Math.abs(step[0]) == 2) {
+                        blocks[count] = (x + step[0] / 2) * size + y;
+                    } else {
+                        blocks[count] = x * size + (y + step[1] / 2);
+                    }
+                    count++;
+                }
+            }
+        }
+        offsets[numSquares] = count;
+        this.targets = Arrays.copyOf(targets, count);
+        this.blocks = Arrays.copyOf(blocks, count);
+    }
+
+    /**
+     * Get the table of a board size
+     *
+     * @param size size of the gameboard
+     * @return the knight move table
+     */
+    public static KnightMoveTable forSize(int size) {
+        if (size < MIN_SIZE || size > MAX_SIZE || TABLES[size] == null) {
+            throw new IllegalArgumentException("no knight move table for board size " + size);
+        }
+        return TABLES[size];
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @param square source square
+     * @return index of the first destination of the square in {@link KnightMoveTable#target(int)}
+     */
+    public int begin(int square) {
+        return offsets[square];
+    }
+
+    /**
+     * @param square source square
+     * @return index after the last destination of the square in {@link KnightMoveTable#target(int)}
+     */
+    public int end(int square) {
+        return offsets[square + 1];
+    }
+
+    /**
+     * @param index index between {@link KnightMoveTable#begin(int)} and {@link KnightMoveTable#end(int)}
+     * @return the destination square
+     */
+    public int target(int index) {
+        return targets[index];
+    }
+
+    /**
+     * @param index index between {@link KnightMoveTable#begin(int)} and {@link KnightMoveTable#end(int)}
+     * @return the square which blocks the move to {@link KnightMoveTable#target(int)}
+     */
+    public int block(int index) {
+        return blocks[index];
+    }
+}
@@ -2,6 +2,7 @@ package castle.comp3021.assignment.piece;
 
 import castle.comp3021.assignment.protocol.Game;
 import castle.comp3021.assignment.protocol.Move;
+import castle.comp3021.assignment.protocol.Piece;
 
 /**
  * Global rule that requires that a piece should not go to a destination where there is another piece belonging to the
@@ -10,8 +11,11 @@ import castle.comp3021.assignment.protocol.Move;
 public class OccupiedRule implements Rule {
     @Override
     public boolean validate(Game game, Move move) {
-        var sourcePiece = game.getPiece(move.getSource());
-        var destinationPiece = game.getPiece(move.getDestination());
+        return this.validate(game, move, game.getPiece(move.getSource()), game.getPiece(move.getDestination()));
+    }
+
+    @Override
+    public boolean validate(Game game, Move move, Piece sourcePiece, Piece destinationPiece) {
         if (destinationPiece == null) {
             return true;
         }
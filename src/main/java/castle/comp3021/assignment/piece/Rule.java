@@ -3,6 +3,8 @@ package castle.comp3021.assignment.piece;
 
 import castle.comp3021.assignment.protocol.Game;
 import castle.comp3021.assignment.protocol.Move;
+import castle.comp3021.assignment.protocol.Piece;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Interface that a rule should implement.
@@ -20,6 +22,34 @@ public interface Rule {
      */
     public boolean validate(Game game, Move move);
 
+    /**
+     * Validate the move, with the pieces at the source and destination of the move already looked up.
+     * This is used by {@link RuleSet} so that the pieces are looked up once for all rules.
+     * <p>
+     * Rules that look up pieces should override this method.
+     *
+     * @param game             the current game object
+     * @param move             the move to be validated
+     * @param sourcePiece      the piece at the source of the move
+     * @param destinationPiece the piece at the destination of the move
+     * @return true if the rule check pass. If the rule is violated, return false.
+     */
+    public default boolean validate(Game game, Move move, @Nullable Piece sourcePiece,
+                                    @Nullable Piece destinationPiece) {
+        return this.validate(game, move);
+    }
+
+    /**
+     * Check whether the rule can be violated by moving a type of piece.
+     * Rules that always pass for some type of piece may return false, so that {@link RuleSet} skips them.
+     *
+     * @param pieceType the type of the piece to move, or null if there is no piece at the source
+     * @return false if the rule always passes for the piece type
+     */
+    public default boolean appliesTo(@Nullable Class<? extends Piece> pieceType) {
+        return true;
+    }
+
     /**
      * Returns a string description of the rule, which will be printed as error message when the rule is violated.
      *
@@ -0,0 +1,115 @@
+package castle.comp3021.assignment.piece;
+
+import castle.comp3021.assignment.protocol.Configuration;
+import castle.comp3021.assignment.protocol.Game;
+import castle.comp3021.assignment.protocol.Move;
+import castle.comp3021.assignment.protocol.Piece;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * All rules that a move should not violate, built once and shared by every game with the same rule parameters.
+ * <p>
+ * Rules are checked in a fixed order. {@link OutOfBoundaryRule} is checked first; after that the pieces at the
+ * source and destination are looked up once and shared by the remaining rules, and rules that cannot be violated by
+ * the type of the moving piece (see {@link Rule#appliesTo(Class)}) are skipped.
+ */
+public class RuleSet {
+    /**
+     * Rule sets by number of moves with capture protection, which is the only configurable rule parameter
+     */
+    private static final Map<Integer, RuleSet> RULE_SETS = new ConcurrentHashMap<>();
+
+    private final Rule boundaryRule = new OutOfBoundaryRule();
+
+    /**
+     * Rules to check after {@link RuleSet#boundaryRule} when there is a knight at the source
+     */
+    private final Rule[] knightRules;
+
+    /**
+     * Rules to check after {@link RuleSet#boundaryRule} when there is an archer at the source
+     */
+    private final Rule[] archerRules;
+
+    /**
+     * Rules to check after {@link RuleSet#boundaryRule} when there is no piece or another type of piece at the source
+     */
+    private final Rule[] otherRules;
+
+    private RuleSet(int numMovesProtection) {
+        var rules = new Rule[]{
+                new OccupiedRule(),
+                new VacantRule(),
+                new NilMoveRule(),
+                new FirstNMovesProtectionRule(numMovesProtection),
+                new ArcherMoveRule(),
+                new KnightMoveRule(),
+                new KnightBlockRule(),
+        };
+        this.knightRules = filter(rules, Knight.class);
+        this.archerRules = filter(rules, Archer.class);
+        this.otherRules = filter(rules, null);
+    }
+
+    /**
+     * Get the rule set of a configuration
+     *
+     * @param configuration the game configuration
+     * @return the shared rule set
+     */
+    public static RuleSet of(@NotNull Configuration configuration) {
+        return RULE_SETS.computeIfAbsent(configuration.getNumMovesProtection(), RuleSet::new);
+    }
+
+    private static Rule[] filter(Rule[] rules, @Nullable Class<? extends Piece> pieceType) {
+        return Arrays.stream(rules)
+                .filter(rule -> rule.appliesTo(pieceType))
+                .toArray(Rule[]::new);
+    }
+
+    /**
+     * Find the first rule violated by a move
+     *
+     * @param game the current game object
+     * @param move the move to be validated
+     * @return the violated rule, or null if the move is valid
+     */
+    public @Nullable Rule findViolation(Game game, Move move) {
+        if (!boundaryRule.validate(game, move)) {
+            return boundaryRule;
+        }
+        var sourcePiece = game.getPiece(move.getSource());
+        var destinationPiece = game.getPiece(move.getDestination());
+        Rule[] rules;
+        if (sourcePiece instanceof Knight) {
+            rules = knightRules;
+        } else if (sourcePiece instanceof Archer) {
+            rules = archerRules;
+        } else {
+            rules = otherRules;
+        }
+        for (var rule : rules) {
+            if (!rule.validate(game, move, sourcePiece, destinationPiece)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Validate a move against all rules
+     *
+     * @param game the current game object
+     * @param move the move to be validated
+     * @return the description of the first violated rule, or null if the move is valid
+     */
+    public @Nullable String validate(Game game, Move move) {
+        var rule = this.findViolation(game, move);
+        return rule == null ? null : rule.getDescription();
+    }
+}
@@ -2,6 +2,7 @@ package castle.comp3021.assignment.piece;
 
 import castle.comp3021.assignment.protocol.Game;
 import castle.comp3021.assignment.protocol.Move;
+import castle.comp3021.assignment.protocol.Piece;
 
 /**
  * Global rule that requires the source place of a move must have a piece on it.
@@ -9,7 +10,11 @@ import castle.comp3021.assignment.protocol.Move;
 public class VacantRule implements Rule {
     @Override
     public boolean validate(Game game, Move move) {
-        var sourcePiece = game.getPiece(move.getSource());
+        return this.validate(game, move, game.getPiece(move.getSource()), null);
+    }
+
+    @Override
+    public boolean validate(Game game, Move move, Piece sourcePiece, Piece destinationPiece) {
         return sourcePiece != null;
     }
 
@@ -0,0 +1,418 @@
+package castle.comp3021.assignment.player;
+
+import castle.comp3021.assignment.gui.DurationTimer;
+import castle.comp3021.assignment.player.search.AlphaBeta;
+import castle.comp3021.assignment.player.search.OpeningBook;
+import castle.comp3021.assignment.player.search.Tablebase;
+import castle.comp3021.assignment.player.search.TranspositionTable;
+import castle.comp3021.assignment.protocol.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A computer player that chooses moves by iterative-deepening alpha-beta search.
+ * <p>
+ * Each move is searched until a maximum depth or a time limit is reached. By default the time limit is the time of
+ * each round ({@link DurationTimer#getDefaultEachRound()}) minus a safety margin, so that the player always moves
+ * before its time is up. The search results, killer moves and history scores are kept between moves.
+ * <p>
+ * Positions in the opening book ({@link OpeningBook#forSize(int, int)}) or the endgame tablebase
+ * ({@link Tablebase#forSize(int)}) of the board size are not searched.
+ * <p>
+ * If {@link Configuration#isPondering()}, the player ponders after each move: it predicts the reply of the opponent
+ * from the transposition table and searches the position after it in the background, until its next move is asked
+ * for or the game ends. If the opponent made the predicted move, the ponder search goes on as the search of the next
+ * move, until the deadline of that move, so the time spent pondering is added to the time of the move. Otherwise the
+ * ponder search is stopped, and the next search still finds the positions that both have in common in the table.
+ */
+public class AlphaBetaPlayer extends Player {
+    /**
+     * Time limit meaning that the time of each round is used
+     */
+    public static final long ROUND_TIME_LIMIT = -1;
+
+    /**
+     * Time limit meaning that the search is limited by the maximum depth only
+     */
+    public static final long NO_TIME_LIMIT = 0;
+
+    /**
+     * Time in milliseconds kept in reserve from the time of each round, for applying the move
+     */
+    private static final long SAFETY_MARGIN_MILLIS = 1500;
+
+    /**
+     * Shortest time limit in milliseconds when the time of each round is used
+     */
+    private static final long MIN_TIME_LIMIT_MILLIS = 100;
+
+    @NotNull
+    private final TranspositionTable table;
+
+    /**
+     * Stops the search of this player when set
+     */
+    @NotNull
+    protected final AtomicBoolean stopSignal = new AtomicBoolean();
+
+    @NotNull
+    private final AlphaBeta search;
+
+    /**
+     * Threads running the ponder searches of all players
+     */
+    private static final ExecutorService PONDER_THREADS = Executors.newCachedThreadPool(runnable -> {
+        var thread = new Thread(runnable, "ponder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Stops the ponder search when set; it is cleared before a ponder search is submitted, not when it starts, so
+     * that a ponder search stopped before it starts does not run
+     */
+    @NotNull
+    private final AtomicBoolean ponderSignal = new AtomicBoolean();
+
+    @NotNull
+    private final AlphaBeta ponderSearch;
+
+    /**
+     * Guards the state of pondering, which is started and finished by the thread computing the moves of this player
+     * and may be stopped by any other thread
+     */
+    private final Object ponderLock = new Object();
+
+    /**
+     * The running ponder search, or null
+     */
+    @Nullable
+    private Future<?> ponderTask;
+
+    /**
+     * Position key and number of moves of the position being pondered
+     */
+    private long ponderKey;
+
+    private int ponderNumMoves;
+
+    private final int maxDepth;
+
+    private final long timeLimitMillis;
+
+    /**
+     * @param name            name of the player
+     * @param color           color of the player
+     * @param maxDepth        maximum number of plies to search
+     * @param timeLimitMillis time limit of each move in milliseconds, {@link AlphaBetaPlayer#ROUND_TIME_LIMIT} or
+     *                        {@link AlphaBetaPlayer#NO_TIME_LIMIT}
+     * @param table           transposition table used by the search
+     */
+    public AlphaBetaPlayer(String name, Color color, int maxDepth, long timeLimitMillis,
+                           @NotNull TranspositionTable table) {
+        super(name, color);
+        if (maxDepth >= AlphaBeta.MAX_PLY && timeLimitMillis == NO_TIME_LIMIT) {
+            throw new IllegalArgumentException("search must be limited by depth or by time");
+        }
+        this.maxDepth = maxDepth;
+        this.timeLimitMillis = timeLimitMillis;
+        this.table = table;
+        this.search = new AlphaBeta(table, stopSignal);
+        this.ponderSearch = new AlphaBeta(table, ponderSignal);
+    }
+
+    public AlphaBetaPlayer(String name, Color color, long timeLimitMillis) {
+        this(name, color, AlphaBeta.MAX_PLY, timeLimitMillis, new TranspositionTable());
+    }
+
+    public AlphaBetaPlayer(String name, Color color) {
+        this(name, color, ROUND_TIME_LIMIT);
+    }
+
+    public AlphaBetaPlayer(String name) {
+        this(name, Color.BLUE);
+    }
+
+    /**
+     * Search the current position on a copy of the game, so that the game itself is not changed.
+     *
+     * @param game           the current game object
+     * @param availableMoves available moves for this player to choose from.
+     * @return the move of the opening book or the tablebase, the pondered move, or the best move found by the search
+     */
+    @Override
+    public @NotNull Move nextMove(Game game, Move[] availableMoves) {
+        var deadline = this.getDeadline();
+        var knownMove = knownMove(game);
+        if (knownMove != PackedMove.NONE) {
+            this.stopPondering();
+            return findMove(game, availableMoves, knownMove);
+        }
+        var best = this.finishPondering(game, deadline);
+        if (best == PackedMove.NONE) {
+            stopSignal.set(false);
+            best = search.search(copyOf(game), maxDepth, deadline);
+        }
+        this.startPondering(game, best);
+        return findMove(game, availableMoves, best);
+    }
+
+    /**
+     * Start pondering after a move, if {@link Configuration#isPondering()} and the transposition table has a reply
+     * to the move. The ponder search is not limited by time: it runs until the maximum depth, or until it is stopped
+     * by the next move of this player or the end of the game. Pondering is not started if the computation of the move
+     * has been cancelled by interrupting the current thread.
+     *
+     * @param game the current game object, before the move
+     * @param move the move about to be made, encoded by {@link PackedMove}
+     */
+    protected void startPondering(Game game, int move) {
+        if (!game.getConfiguration().isPondering() || move == PackedMove.NONE) {
+            return;
+        }
+        var copy = copyOf(game);
+        copy.makeMove(move);
+        if (copy.getWinnerIndex(move) >= 0) {
+            return;
+        }
+        var entry = table.probe(copy.getPositionKey());
+        var reply = entry == 0 ? PackedMove.NONE : matchMove(copy, TranspositionTable.move(entry));
+        if (reply == PackedMove.NONE) {
+            return;
+        }
+        copy.makeMove(reply);
+        if (copy.getWinnerIndex(reply) >= 0) {
+            return;
+        }
+        synchronized (ponderLock) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            this.stopPondering();
+            this.ponderKey = copy.getPositionKey();
+            this.ponderNumMoves = copy.getNumMoves();
+            ponderSignal.set(false);
+            this.ponderTask = PONDER_THREADS.submit(() -> ponderSearch.search(copy, maxDepth, AlphaBeta.NO_DEADLINE));
+        }
+    }
+
+    /**
+     * Finish pondering. If the opponent made the predicted move, the ponder search has been searching the current
+     * position: it goes on until the deadline of the move, and its result is used. Otherwise it is stopped at once.
+     *
+     * @param game     the current game object
+     * @param deadline deadline of the move in {@link System#nanoTime()}, or {@link AlphaBeta#NO_DEADLINE}
+     * @return the best move of the ponder search encoded by {@link PackedMove} if it searched the current position
+     * and finished at least one iteration, or {@link PackedMove#NONE}
+     */
+    protected int finishPondering(Game game, long deadline) {
+        synchronized (ponderLock) {
+            if (this.ponderTask == null) {
+                return PackedMove.NONE;
+            }
+            var hit = game.getPositionKey() == this.ponderKey && game.getNumMoves() == this.ponderNumMoves;
+            if (hit) {
+                awaitDeadline(this.ponderTask, deadline);
+            }
+            this.stopPondering();
+            if (!hit || ponderSearch.getCompletedDepth() == 0) {
+                return PackedMove.NONE;
+            }
+            return ponderSearch.getBestMove();
+        }
+    }
+
+    /**
+     * Wait until a search finishes or a deadline passes, whichever comes first, or until the current thread is
+     * interrupted; the interrupt status is kept
+     *
+     * @param task     the search
+     * @param deadline deadline in {@link System#nanoTime()}, or {@link AlphaBeta#NO_DEADLINE}
+     */
+    private static void awaitDeadline(Future<?> task, long deadline) {
+        try {
+            if (deadline == AlphaBeta.NO_DEADLINE) {
+                task.get();
+            } else {
+                task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException ignored) {
+            // a failure is reported when the search is awaited after stopping it
+        }
+    }
+
+    /**
+     * Stop the ponder search, if any, and wait for it to finish. This may be called from any thread; it is called
+     * when a game ends ({@link Player#onGameEnd()}), so that the search does not keep running.
+     */
+    public void stopPondering() {
+        synchronized (ponderLock) {
+            if (this.ponderTask == null) {
+                return;
+            }
+            ponderSignal.set(true);
+            try {
+                awaitSearch(this.ponderTask, "ponder search");
+            } finally {
+                this.ponderTask = null;
+            }
+        }
+    }
+
+    /**
+     * Stop pondering, so that no search of this player keeps running after the game
+     */
+    @Override
+    public void onGameEnd() {
+        this.stopPondering();
+    }
+
+    /**
+     * Wait for a search running on another thread to finish. The wait is not cut short by an interrupt, so that the
+     * search never overlaps the next one that uses the same objects; the interrupt status is kept.
+     *
+     * @param task        the search
+     * @param description description of the search for the error message
+     * @throws IllegalStateException if the search failed
+     */
+    static void awaitSearch(Future<?> task, String description) {
+        var interrupted = false;
+        try {
+            while (true) {
+                try {
+                    task.get();
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(description + " failed", e.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Find the available move of the current player of a game that has the same squares as a packed move
+     *
+     * @param game the game object
+     * @param move a move encoded by {@link PackedMove}
+     * @return the available move encoded by {@link PackedMove}, or {@link PackedMove#NONE} if none matches
+     */
+    private static int matchMove(Game game, int move) {
+        var moves = new IntMoveList();
+        game.getAvailableMoves(game.getCurrentPlayer(), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (PackedMove.squares(moves.get(i)) == PackedMove.squares(move)) {
+                return moves.get(i);
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    /**
+     * @return deadline of a search starting now, in {@link System#nanoTime()}, or {@link AlphaBeta#NO_DEADLINE}
+     */
+    protected long getDeadline() {
+        if (this.timeLimitMillis == NO_TIME_LIMIT) {
+            return AlphaBeta.NO_DEADLINE;
+        }
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.getTimeLimitMillis());
+    }
+
+    /**
+     * Copy a game for searching, so that the game itself is not changed
+     *
+     * @param game the game object
+     * @return a deep copy of the game
+     */
+    protected static Game copyOf(Game game) {
+        try {
+            return game.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return time limit of the next move in milliseconds, or {@link AlphaBetaPlayer#NO_TIME_LIMIT}
+     */
+    public long getTimeLimitMillis() {
+        if (this.timeLimitMillis != ROUND_TIME_LIMIT) {
+            return this.timeLimitMillis;
+        }
+        return roundTimeLimitMillis();
+    }
+
+    /**
+     * @return time limit in milliseconds that keeps a computer player within the time of each round
+     */
+    static long roundTimeLimitMillis() {
+        return Math.max(MIN_TIME_LIMIT_MILLIS,
+                TimeUnit.SECONDS.toMillis(DurationTimer.getDefaultEachRound()) - SAFETY_MARGIN_MILLIS);
+    }
+
+    /**
+     * Look up the current position in the opening book of the board size and number of moves before capturing is
+     * allowed, and in the endgame tablebase of the board size
+     *
+     * @param game the current game object
+     * @return the move of the book or the best move of the tablebase encoded by {@link PackedMove}, or
+     * {@link PackedMove#NONE} if the position is in neither of them
+     * @throws java.io.UncheckedIOException if the book or tablebase file of the size cannot be read
+     */
+    static int knownMove(Game game) {
+        var size = game.getConfiguration().getSize();
+        var bookMove = OpeningBook.forSize(size, game.getConfiguration().getNumMovesProtection()).probe(game);
+        if (bookMove != PackedMove.NONE) {
+            return bookMove;
+        }
+        var tablebase = Tablebase.forSize(size);
+        return tablebase.covers(game) ? tablebase.bestMove(copyOf(game)) : PackedMove.NONE;
+    }
+
+    /**
+     * Find the available move that matches a packed move
+     *
+     * @param game           the current game object
+     * @param availableMoves available moves
+     * @param move           the move encoded by {@link PackedMove}
+     * @return the matching available move, or the first available move if none matches
+     */
+    static Move findMove(Game game, Move[] availableMoves, int move) {
+        if (move != PackedMove.NONE) {
+            var squares = PackedMove.squares(move);
+            for (var availableMove : availableMoves) {
+                if (PackedMove.squares(game.toPackedMove(availableMove)) == squares) {
+                    return availableMove;
+                }
+            }
+        }
+        return availableMoves[0];
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public AlphaBeta getSearch() {
+        return search;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+}
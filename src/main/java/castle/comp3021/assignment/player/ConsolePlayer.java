@@ -50,7 +50,7 @@ public class ConsolePlayer extends Player {
         try {
             var x = str.charAt(0) - 'a';
             var y = Integer.parseInt(str.substring(1)) - 1;
-            return new Place(x, y);
+            return Place.of(x, y);
         } catch (NumberFormatException e) {
             return null;
         }
@@ -0,0 +1,108 @@
+package castle.comp3021.assignment.player;
+
+import castle.comp3021.assignment.player.search.AlphaBeta;
+import castle.comp3021.assignment.player.search.TranspositionTable;
+import castle.comp3021.assignment.protocol.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A computer player that searches with several threads in parallel (Lazy SMP).
+ * <p>
+ * Helper threads search copies of the current position, each skipping different depths of iterative deepening, and all
+ * threads share one {@link TranspositionTable}, so that the main search finds many positions already searched by the
+ * helpers. The move found by the main thread is played; the helpers are stopped as soon as the main thread finishes.
+ * The number of threads is {@link Configuration#getNumSearchThreads()}. Pondering uses one thread only.
+ */
+public class LazySmpPlayer extends AlphaBetaPlayer {
+    /**
+     * Threads running the helper searches of all players
+     */
+    private static final ExecutorService HELPER_THREADS = Executors.newCachedThreadPool(runnable -> {
+        var thread = new Thread(runnable, "search-helper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Searches of the helper threads, reused between moves
+     */
+    private final List<AlphaBeta> helpers = new ArrayList<>();
+
+    /**
+     * @param name            name of the player
+     * @param color           color of the player
+     * @param maxDepth        maximum number of plies to search
+     * @param timeLimitMillis time limit of each move in milliseconds, {@link AlphaBetaPlayer#ROUND_TIME_LIMIT} or
+     *                        {@link AlphaBetaPlayer#NO_TIME_LIMIT}
+     * @param table           transposition table shared by all threads
+     */
+    public LazySmpPlayer(String name, Color color, int maxDepth, long timeLimitMillis,
+                         @NotNull TranspositionTable table) {
+        super(name, color, maxDepth, timeLimitMillis, table);
+    }
+
+    public LazySmpPlayer(String name, Color color, long timeLimitMillis) {
+        this(name, color, AlphaBeta.MAX_PLY, timeLimitMillis, new TranspositionTable());
+    }
+
+    public LazySmpPlayer(String name, Color color) {
+        this(name, color, ROUND_TIME_LIMIT);
+    }
+
+    public LazySmpPlayer(String name) {
+        this(name, Color.BLUE);
+    }
+
+    /**
+     * Search the current position with {@link Configuration#getNumSearchThreads()} threads.
+     *
+     * @param game           the current game object
+     * @param availableMoves available moves for this player to choose from.
+     * @return the move of the opening book or the tablebase, the pondered move, or the best move found by the main
+     * search
+     */
+    @Override
+    public @NotNull Move nextMove(Game game, Move[] availableMoves) {
+        var deadline = this.getDeadline();
+        var knownMove = knownMove(game);
+        if (knownMove != PackedMove.NONE) {
+            this.stopPondering();
+            return findMove(game, availableMoves, knownMove);
+        }
+        var ponderedMove = this.finishPondering(game, deadline);
+        if (ponderedMove != PackedMove.NONE) {
+            this.startPondering(game, ponderedMove);
+            return findMove(game, availableMoves, ponderedMove);
+        }
+        var numHelpers = game.getConfiguration().getNumSearchThreads() - 1;
+        while (helpers.size() < numHelpers) {
+            helpers.add(new AlphaBeta(this.getTable(), stopSignal, helpers.size()));
+        }
+
+        stopSignal.set(false);
+        var tasks = new ArrayList<Future<?>>(numHelpers);
+        for (int i = 0; i < numHelpers; i++) {
+            var helper = helpers.get(i);
+            var copy = copyOf(game);
+            tasks.add(HELPER_THREADS.submit(() -> helper.search(copy, this.getMaxDepth(), deadline)));
+        }
+        int best;
+        try {
+            best = this.getSearch().search(copyOf(game), this.getMaxDepth(), deadline);
+        } finally {
+            stopSignal.set(true);
+            for (var task : tasks) {
+                // wait for the helpers, so that they do not run into the next move
+                awaitSearch(task, "helper search");
+            }
+        }
+        this.startPondering(game, best);
+        return findMove(game, availableMoves, best);
+    }
+}
@@ -0,0 +1,103 @@
+package castle.comp3021.assignment.player;
+
+import castle.comp3021.assignment.player.search.MonteCarloTreeSearch;
+import castle.comp3021.assignment.protocol.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A computer player that chooses moves by parallel Monte Carlo tree search.
+ * <p>
+ * Each move is searched until a number of playouts or a time limit is reached, using
+ * {@link Configuration#getNumSearchThreads()} threads. By default the time of each round is used, as for
+ * {@link AlphaBetaPlayer}. The search tree is kept between moves. Positions in the opening book or the endgame
+ * tablebase are not searched, as for {@link AlphaBetaPlayer}.
+ */
+public class MctsPlayer extends Player {
+    /**
+     * Time limit meaning that the search is limited by the number of playouts only
+     */
+    public static final long NO_TIME_LIMIT = 0;
+
+    @NotNull
+    private final MonteCarloTreeSearch search = new MonteCarloTreeSearch();
+
+    private final int maxPlayouts;
+
+    private final long timeLimitMillis;
+
+    /**
+     * Threads running the playouts, created again when the number of search threads changes
+     */
+    @Nullable
+    private ForkJoinPool pool;
+
+    /**
+     * @param name            name of the player
+     * @param color           color of the player
+     * @param maxPlayouts     maximum number of playouts of each move, or
+     *                        {@link MonteCarloTreeSearch#NO_PLAYOUT_LIMIT}
+     * @param timeLimitMillis time limit of each move in milliseconds, {@link AlphaBetaPlayer#ROUND_TIME_LIMIT} or
+     *                        {@link MctsPlayer#NO_TIME_LIMIT}
+     */
+    public MctsPlayer(String name, Color color, int maxPlayouts, long timeLimitMillis) {
+        super(name, color);
+        if (maxPlayouts == MonteCarloTreeSearch.NO_PLAYOUT_LIMIT && timeLimitMillis == NO_TIME_LIMIT) {
+            throw new IllegalArgumentException("search must be limited by playouts or by time");
+        }
+        this.maxPlayouts = maxPlayouts;
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    public MctsPlayer(String name, Color color) {
+        this(name, color, MonteCarloTreeSearch.NO_PLAYOUT_LIMIT, AlphaBetaPlayer.ROUND_TIME_LIMIT);
+    }
+
+    public MctsPlayer(String name) {
+        this(name, Color.BLUE);
+    }
+
+    /**
+     * Search the current position, reusing the tree of the previous move if it contains the position.
+     *
+     * @param game           the current game object
+     * @param availableMoves available moves for this player to choose from.
+     * @return the move of the opening book or the tablebase, or the most visited move
+     */
+    @Override
+    public @NotNull Move nextMove(Game game, Move[] availableMoves) {
+        if (availableMoves.length == 1) {
+            return availableMoves[0];
+        }
+        var knownMove = AlphaBetaPlayer.knownMove(game);
+        if (knownMove != PackedMove.NONE) {
+            return AlphaBetaPlayer.findMove(game, availableMoves, knownMove);
+        }
+        var deadline = MonteCarloTreeSearch.NO_DEADLINE;
+        if (this.timeLimitMillis == AlphaBetaPlayer.ROUND_TIME_LIMIT) {
+            deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(AlphaBetaPlayer.roundTimeLimitMillis());
+        } else if (this.timeLimitMillis != NO_TIME_LIMIT) {
+            deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.timeLimitMillis);
+        }
+        var best = search.search(game, maxPlayouts, deadline, this.getPool(game));
+        return AlphaBetaPlayer.findMove(game, availableMoves, best);
+    }
+
+    private ForkJoinPool getPool(Game game) {
+        var numThreads = game.getConfiguration().getNumSearchThreads();
+        if (pool == null || pool.getParallelism() != numThreads) {
+            if (pool != null) {
+                pool.shutdown();
+            }
+            pool = new ForkJoinPool(numThreads);
+        }
+        return pool;
+    }
+
+    public MonteCarloTreeSearch getSearch() {
+        return search;
+    }
+}
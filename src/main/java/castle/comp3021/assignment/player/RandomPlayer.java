@@ -3,12 +3,14 @@ package castle.comp3021.assignment.player;
 import castle.comp3021.assignment.protocol.*;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.*;
+import java.util.Random;
 
 /**
  * A computer player that makes a move randomly.
  */
 public class RandomPlayer extends Player {
+    private final Random random = new Random();
+
     public RandomPlayer(String name, Color color) {
         super(name, color);
     }
@@ -19,7 +21,7 @@ public class RandomPlayer extends Player {
 
     @Override
     public @NotNull Move nextMove(Game game, Move[] availableMoves) {
-        int index = new Random().nextInt(availableMoves.length);
+        int index = random.nextInt(availableMoves.length);
         return availableMoves[index];
     }
 }
@@ -5,13 +5,25 @@ import castle.comp3021.assignment.piece.Knight;
 import castle.comp3021.assignment.protocol.*;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Random;
 
 /**
  * A computer player that makes a move using smart strategy.
  */
 public class SmartRandomPlayer extends Player {
+    private final Random random = new Random();
+
+    /**
+     * Ratings of the available moves, reused between calls of {@link SmartRandomPlayer#nextMove(Game, Move[])}
+     */
+    private int[] ratings = new int[0];
+
+    /**
+     * Indices of the available moves, of which the first N are the best after
+     * {@link SmartRandomPlayer#selectBestNMoves(int, int)}
+     */
+    private int[] order = new int[0];
+
     public SmartRandomPlayer(String name, Color color) {
         super(name, color);
     }
@@ -34,92 +46,166 @@ public class SmartRandomPlayer extends Player {
     public @NotNull Move nextMove(Game game, Move[] availableMoves) {
         //TODO: bonus only
         final int n = game.getConfiguration().getSize() / 3;
-        Move[] bestNMoves = filterBestNMoves(game, availableMoves, n);
-        int index = new Random().nextInt(bestNMoves.length);
-        return bestNMoves[index];
+        if (availableMoves.length <= n) {
+            return availableMoves[random.nextInt(availableMoves.length)];
+        }
+        if (ratings.length < availableMoves.length) {
+            ratings = new int[availableMoves.length];
+            order = new int[availableMoves.length];
+        }
+        Features features = new Features(game);
+        for (int i = 0; i < availableMoves.length; i++) {
+            ratings[i] = rateMove(features, game, availableMoves[i]);
+            order[i] = i;
+        }
+        selectBestNMoves(availableMoves.length, n);
+        return availableMoves[order[random.nextInt(n)]];
     }
 
     /**
-     * Generate the best N moves
-     * @param game           the current game object
-     * @param availableMoves available moves for this player to choose from
-     * @param n              number of moves to be generated
-     * @return best N moves generated
+     * Facts about the current position used for rating every move, computed once per call of
+     * {@link SmartRandomPlayer#nextMove(Game, Move[])}
      */
-    private Move[] filterBestNMoves(Game game, Move[] availableMoves, int n) {
-        if (availableMoves.length <= n) {
-            return availableMoves;
+    private class Features {
+        private final int size;
+
+        private final Place centralPlace;
+
+        private final boolean protectionExpired;
+
+        /**
+         * Number of pieces of the opponent
+         */
+        private final int numEnemyPieces;
+
+        /**
+         * Whether a knight of this player is in the central place
+         */
+        private final boolean hasCapturedCentralPlace;
+
+        private final int playerIndex;
+
+        private final Bitboard bitboard;
+
+        private final ArcherAttackMap archerAttacks;
+
+        private Features(Game game) {
+            Configuration configuration = game.getConfiguration();
+            this.size = configuration.getSize();
+            this.centralPlace = configuration.getCentralPlace();
+            this.protectionExpired = game.getNumMoves() >= configuration.getNumMovesProtection();
+            this.playerIndex = game.getPlayerIndex(SmartRandomPlayer.this);
+            this.bitboard = game.getBitboard();
+            this.archerAttacks = game.getArcherAttacks();
+            // once per move, so that the lines changed by the moves since the last move are recomputed only here
+            this.archerAttacks.refresh();
+            this.numEnemyPieces = this.bitboard.count(1 - this.playerIndex);
+            this.hasCapturedCentralPlace = hasCapturedCentralPlace(game);
         }
-        HashMap<Move, Integer> moveRatingMap = new HashMap<>();
-        for (Move move : availableMoves) {
-            moveRatingMap.put(move, rateMove(game, move));
+
+        /**
+         * Check if any archer can fire after a piece moves to the destination, i.e. the piece becomes the screen
+         * between an archer of this player and an enemy piece (see {@link ArcherAttackMap#isScreen(int, int)})
+         * @param destination the destination place
+         * @return can any archer fire or all cannot
+         */
+        private boolean canAnyArcherFire(Place destination) {
+            return this.protectionExpired
+                    && this.archerAttacks.isScreen(this.bitboard.square(destination.x(), destination.y()),
+                    this.playerIndex);
         }
-        LinkedHashMap<Move, Integer> sortedMoveRatingMap =
-                moveRatingMap.entrySet().stream()
-                        .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
-                        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue
-                                , (e1, e2) -> e1, LinkedHashMap::new));
-        return sortedMoveRatingMap.keySet().stream().limit(n).toArray(Move[]::new);
+    }
+
+    /**
+     * Reorder {@link SmartRandomPlayer#order} so that its first N entries are the moves with the highest ratings, in no
+     * particular order (quickselect with three-way partitioning, since many moves have equal ratings)
+     * @param numMoves number of rated moves
+     * @param n        number of best moves to select, less than numMoves
+     */
+    private void selectBestNMoves(int numMoves, int n) {
+        int low = 0;
+        int high = numMoves;
+        while (high - low > 1) {
+            int pivot = ratings[order[(low + high) >>> 1]];
+            // order[low, greater) > pivot, order[greater, i) == pivot, order[less, high) < pivot
+            int greater = low;
+            int less = high;
+            int i = low;
+            while (i < less) {
+                int rating = ratings[order[i]];
+                if (rating > pivot) {
+                    swap(greater++, i++);
+                } else if (rating < pivot) {
+                    swap(i, --less);
+                } else {
+                    i++;
+                }
+            }
+            if (n < greater) {
+                high = greater;
+            } else if (n > less) {
+                low = less;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        int temp = order[i];
+        order[i] = order[j];
+        order[j] = temp;
     }
 
     /**
      * Rate each move
-     * @param game the current game object
-     * @param move the move to be rated
+     * @param features facts about the current position
+     * @param game     the current game object
+     * @param move     the move to be rated
      * @return rating of the move
      */
-    private int rateMove(Game game, Move move) {
-        if (checkVictoryMove(game, move)) {
+    private int rateMove(Features features, Game game, Move move) {
+        if (checkVictoryMove(features, game, move)) {
             return Integer.MAX_VALUE;
         }
-        return rateMoveByCapture(game, move) + rateMoveByPotential(game, move) + getMoveScore(game, move);
+        return rateMoveByCapture(features, game, move) + rateMoveByPotential(features, game, move)
+                + getMoveScore(features, move);
     }
 
     /**
      * Check if the move leads to victory
-     * @param game the current game object
-     * @param move the move to be rated
+     * @param features facts about the current position
+     * @param game     the current game object
+     * @param move     the move to be rated
      * @return leads to victory or not
      */
-    private boolean checkVictoryMove(Game game, Move move) {
-        Configuration configuration = game.getConfiguration();
-        if (game.getNumMoves() < configuration.getNumMovesProtection()) {
+    private boolean checkVictoryMove(Features features, Game game, Move move) {
+        if (!features.protectionExpired) {
             return false;
         }
         Place source = move.getSource();
         Place destination = move.getDestination();
-        Place centralPlace = configuration.getCentralPlace();
         Piece sourcePiece = game.getPiece(source);
         if ((sourcePiece instanceof Knight)
-                && source.equals(centralPlace) && !destination.equals(centralPlace)) {
+                && source.equals(features.centralPlace) && !destination.equals(features.centralPlace)) {
             return true;
         }
 
-        if (this.rateMoveByCapture(game, move) <= 0) {
+        if (this.rateMoveByCapture(features, game, move) <= 0) {
             return false;
         }
-
-        int count = 0;
-        int size = configuration.getSize();
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                Piece piece = game.getPiece(i, j);
-                if (piece != null && !(piece.getPlayer().equals(this))) {
-                    count++;
-                }
-            }
-        }
-        return (count <= 1);
+        return (features.numEnemyPieces <= 1);
     }
 
     /**
      * Check what piece does the move capture, rate with specified weighing
-     * @param game the current game object
-     * @param move the move to be rated
+     * @param features facts about the current position
+     * @param game     the current game object
+     * @param move     the move to be rated
      * @return calculated rating
      */
-    private int rateMoveByCapture(Game game, Move move) {
-        final int weighingFactor = game.getConfiguration().getSize() * 50;
+    private int rateMoveByCapture(Features features, Game game, Move move) {
+        final int weighingFactor = features.size * 50;
         final int knightScore = weighingFactor * 5;
         final int archerScore = weighingFactor * 2;
         Piece capturingPiece = game.getPiece(move.getDestination());
@@ -133,21 +219,20 @@ public class SmartRandomPlayer extends Player {
 
     /**
      * Check the potential advantage brought by the move, rate with specified weighing
-     * @param game the current game object
-     * @param move the move to be rated
+     * @param features facts about the current position
+     * @param game     the current game object
+     * @param move     the move to be rated
      * @return calculated rating
      */
-    private int rateMoveByPotential(Game game, Move move) {
-        Configuration configuration = game.getConfiguration();
-        boolean protectionExpired = (game.getNumMoves() >= configuration.getNumMovesProtection());
-        int size = configuration.getSize();
+    private int rateMoveByPotential(Features features, Game game, Move move) {
+        int size = features.size;
         final int weighingFactor = size * 20;
-        final int knightBonus = (hasCapturedCentralPlace(game)) ? 0 : 5;
-        final int knightAssistBonus = (!protectionExpired) ? 0 : 1;
-        final int archerAttackBonus = (!protectionExpired) ? 0 : 10;
+        final int knightBonus = (features.hasCapturedCentralPlace) ? 0 : 5;
+        final int knightAssistBonus = (!features.protectionExpired) ? 0 : 1;
+        final int archerAttackBonus = (!features.protectionExpired) ? 0 : 10;
         Place source = move.getSource();
         Place destination = move.getDestination();
-        Place centralPlace = configuration.getCentralPlace();
+        Place centralPlace = features.centralPlace;
         Piece piece = game.getPiece(source);
         int totalScore = 0;
         if (piece instanceof Knight) {
@@ -158,11 +243,11 @@ public class SmartRandomPlayer extends Player {
             int score = currentDistance * newBonus - newDistance * currentBonus;
             score *= (size - newDistance);
             totalScore += score;
-            if (canAnyArcherFire(game, destination)) {
+            if (features.canAnyArcherFire(destination)) {
                 totalScore += knightAssistBonus;
             }
         } else if (piece instanceof Archer) {
-            if (canAnyArcherFire(game, destination)) {
+            if (features.canAnyArcherFire(destination)) {
                 totalScore += archerAttackBonus;
             }
             if (source.equals(centralPlace)) {
@@ -174,12 +259,12 @@ public class SmartRandomPlayer extends Player {
 
     /**
      * Rate the move according to the Manhattan Distance
-     * @param game the current game object
-     * @param move the move to be rated
+     * @param features facts about the current position
+     * @param move     the move to be rated
      * @return calculated rating
      */
-    private int getMoveScore(Game game, Move move) {
-        int size = game.getConfiguration().getSize();
+    private int getMoveScore(Features features, Move move) {
+        int size = features.size;
         Place source = move.getSource();
         Place destination = move.getDestination();
         int manhattanDistance = getManhattanDistance(source, destination);
@@ -200,83 +285,19 @@ public class SmartRandomPlayer extends Player {
         return Math.abs(destinationX - sourceX) + Math.abs(destinationY - sourceY);
     }
 
-    /**
-     * Check if any archer can fire after a piece moves to the destination
-     * @param game        the current game object
-     * @param destination the destination place
-     * @return can any archer fire or all cannot
-     */
-    private boolean canAnyArcherFire(Game game, Place destination) {
-        Configuration configuration = game.getConfiguration();
-        if (game.getNumMoves() < configuration.getNumMovesProtection()) {
-            return false;
-        }
-        int size = configuration.getSize();
-        int x = destination.x();
-        int y = destination.y();
-        ArrayList<Place> archers = new ArrayList<>();
-        ArrayList<Place> enemies = new ArrayList<>();
-        for (int i = 0; i < size; i++) {
-            Place place = new Place(i, y);
-            Piece piece = game.getPiece(place);
-            if (piece instanceof Archer && piece.getPlayer().equals(this)) {
-                archers.add(place);
-            } else if (piece != null && !(piece.getPlayer().equals(this))) {
-                enemies.add(place);
-            }
-        }
-        for (Place archer : archers) {
-            for (Place enemy : enemies) {
-                int startX = Math.min(archer.x(), enemy.x());
-                int endX = Math.max(archer.x(), enemy.x());
-                if (startX >= x || endX <= x) {
-                    continue;
-                }
-                int inBetweenPieceCount = (game.getPiece(destination) == null) ? 1 : 0;
-                for (int i = startX + 1; i < endX; i++) {
-                    if (game.getPiece(i, y) != null) {
-                        inBetweenPieceCount++;
-                    }
-                }
-                if (inBetweenPieceCount == 1) {
-                    return true;
-                }
-            }
-        }
-        archers = new ArrayList<>();
-        enemies = new ArrayList<>();
-        for (int j = 0; j < size; j++) {
-            Place place = new Place(x, j);
-            Piece piece = game.getPiece(place);
-            if (piece instanceof Archer && piece.getPlayer().equals(this)) {
-                archers.add(place);
-            } else if (piece != null && !(piece.getPlayer().equals(this))) {
-                enemies.add(place);
-            }
-        }
-        for (Place archer : archers) {
-            for (Place enemy : enemies) {
-                int startY = Math.min(archer.y(), enemy.y());
-                int endY = Math.max(archer.y(), enemy.y());
-                if (startY >= y || endY <= y) {
-                    continue;
-                }
-                int inBetweenPieceCount = (game.getPiece(destination) == null) ? 1 : 0;
-                for (int j = startY + 1; j < endY; j++) {
-                    if (game.getPiece(x, j) != null) {
-                        inBetweenPieceCount++;
-                    }
-                }
-                if (inBetweenPieceCount == 1) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
     private boolean hasCapturedCentralPlace(Game game) {
         Piece piece = game.getPiece(game.getConfiguration().getCentralPlace());
         return (piece instanceof Knight && piece.getPlayer().equals(this));
     }
+
+    /**
+     * The copy gets its own buffers for rating moves, so that both players can choose moves at the same time
+     */
+    @Override
+    public SmartRandomPlayer clone() throws CloneNotSupportedException {
+        var cloned = (SmartRandomPlayer) super.clone();
+        cloned.ratings = new int[0];
+        cloned.order = new int[0];
+        return cloned;
+    }
 }
@@ -0,0 +1,514 @@
+package castle.comp3021.assignment.player.search;
+
+import castle.comp3021.assignment.protocol.Bitboard;
+import castle.comp3021.assignment.protocol.Game;
+import castle.comp3021.assignment.protocol.IntMoveList;
+import castle.comp3021.assignment.protocol.PackedMove;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Iterative-deepening negamax search with alpha-beta pruning over {@link Game#makeMove(int)} and
+ * {@link Game#unmakeMove()}.
+ * <p>
+ * Search results are stored in a {@link TranspositionTable}, whose best moves are tried first when the same position
+ * is searched again. Other moves are ordered by captures, killer moves (quiet moves that caused a cutoff at the same
+ * ply) and the history heuristic (how often a quiet move caused a cutoff anywhere in the tree).
+ * <p>
+ * The search stops at a deadline and returns the best move of the deepest search finished so far. An instance keeps
+ * per-ply move lists, killer moves and history scores, and is not thread-safe; the transposition table may be shared.
+ * Searches running in parallel can also share a stop signal, so that one thread can stop all of them. A search is
+ * also stopped when the thread running it is interrupted.
+ * <p>
+ * A helper search of a parallel search skips some depths of iterative deepening, chosen by its helper index, so that
+ * helpers with different indices work on different depths at the same time.
+ * <p>
+ * Positions known by the {@link Tablebase} of the board size are not searched further.
+ */
+public class AlphaBeta {
+    /**
+     * Maximum number of plies from the root
+     */
+    public static final int MAX_PLY = 64;
+
+    private static final int INFINITY = Evaluator.WIN + 1;
+
+    /**
+     * Helper index of a search that is not a helper and searches every depth
+     */
+    public static final int NO_HELPER = -1;
+
+    /**
+     * Helper {@code i} skips depth {@code d} when {@code (d + SKIP_PHASE[j]) / SKIP_SIZE[j]} is odd, where
+     * {@code j = i % SKIP_SIZE.length}: it searches runs of {@code SKIP_SIZE[j]} depths and skips as many, and helpers
+     * with the same run length are shifted against each other by the phase.
+     */
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    /**
+     * Deadline value meaning that the search is not limited by time
+     */
+    public static final long NO_DEADLINE = Long.MIN_VALUE;
+
+    /**
+     * Number of nodes between two checks of the deadline
+     */
+    private static final int CHECK_INTERVAL = 1024;
+
+    private static final int TABLE_MOVE_ORDER = Integer.MAX_VALUE;
+
+    private static final int KNIGHT_CAPTURE_ORDER = 2_000_000;
+
+    private static final int ARCHER_CAPTURE_ORDER = 1_900_000;
+
+    private static final int KILLER_ORDER = 1_800_000;
+
+    /**
+     * History scores are halved when they reach this, so that they always order below killer moves
+     */
+    private static final int MAX_HISTORY = 1_000_000;
+
+    @NotNull
+    private final TranspositionTable table;
+
+    /**
+     * Move list of each ply, reused between nodes
+     */
+    private final IntMoveList[] moveLists = new IntMoveList[MAX_PLY + 1];
+
+    /**
+     * Ordering score of each move in {@link AlphaBeta#moveLists}
+     */
+    private final int[][] orderScores = new int[MAX_PLY + 1][];
+
+    /**
+     * Two killer moves of each ply
+     */
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+
+    /**
+     * History scores indexed by {@code source * numSquares + destination}
+     */
+    private int[] history = new int[0];
+
+    private int numSquares;
+
+    /**
+     * Tablebase of the board size of the current search
+     */
+    @NotNull
+    private Tablebase tablebase = Tablebase.EMPTY;
+
+    /**
+     * Number of nodes visited by the last search
+     */
+    private long nodes;
+
+    /**
+     * Deadline of the current search in {@link System#nanoTime()}, or {@link AlphaBeta#NO_DEADLINE}
+     */
+    private long deadline = NO_DEADLINE;
+
+    /**
+     * Set when the current search ran out of time or was stopped, after which all scores are meaningless
+     */
+    private boolean aborted;
+
+    /**
+     * Set by another thread to stop the current search
+     */
+    @NotNull
+    private final AtomicBoolean stopSignal;
+
+    /**
+     * Whether the stop signal belongs to this search only, in which case it is cleared when a search starts
+     */
+    private final boolean ownsStopSignal;
+
+    /**
+     * Index of this search among the helpers of a parallel search, or {@link AlphaBeta#NO_HELPER}
+     */
+    private final int helperIndex;
+
+    /**
+     * Depth of the deepest finished iteration of the last search
+     */
+    private int completedDepth;
+
+    /**
+     * Best move at the root found by the current iteration
+     */
+    private int rootBestMove;
+
+    /**
+     * Score of the best move found by the last search, from the point of view of the player to move
+     */
+    private int bestScore;
+
+    /**
+     * Best move at the root found by the last search
+     */
+    private int bestMove;
+
+    public AlphaBeta(@NotNull TranspositionTable table) {
+        this(table, new AtomicBoolean(), true, NO_HELPER);
+    }
+
+    /**
+     * @param table      transposition table, which may be shared with other searches
+     * @param stopSignal signal that stops the search when set; it is shared with other searches and is never cleared
+     *                   by this search
+     */
+    public AlphaBeta(@NotNull TranspositionTable table, @NotNull AtomicBoolean stopSignal) {
+        this(table, stopSignal, false, NO_HELPER);
+    }
+
+    /**
+     * @param table       transposition table shared with the other searches of a parallel search
+     * @param stopSignal  signal that stops the search when set; it is shared with other searches and is never cleared
+     *                    by this search
+     * @param helperIndex index of this search among the helper searches, which chooses the depths that it skips
+     */
+    public AlphaBeta(@NotNull TranspositionTable table, @NotNull AtomicBoolean stopSignal, int helperIndex) {
+        this(table, stopSignal, false, helperIndex);
+        if (helperIndex < 0) {
+            throw new IllegalArgumentException("invalid helper index " + helperIndex);
+        }
+    }
+
+    private AlphaBeta(@NotNull TranspositionTable table, @NotNull AtomicBoolean stopSignal, boolean ownsStopSignal,
+                      int helperIndex) {
+        this.table = table;
+        this.stopSignal = stopSignal;
+        this.ownsStopSignal = ownsStopSignal;
+        this.helperIndex = helperIndex;
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new IntMoveList();
+            orderScores[i] = new int[256];
+        }
+    }
+
+    /**
+     * Search a position to a fixed depth
+     *
+     * @param game  the game, which is restored to the same position after the search
+     * @param depth number of plies to search
+     * @return the best move encoded by {@link PackedMove}, or {@link PackedMove#NONE} if there is no available move
+     */
+    public int search(Game game, int depth) {
+        return this.search(game, depth, NO_DEADLINE);
+    }
+
+    /**
+     * Search a position with iterative deepening until the maximum depth or the deadline is reached, or a forced
+     * win or loss is found.
+     *
+     * @param game     the game, which is restored to the same position after the search
+     * @param maxDepth maximum number of plies to search
+     * @param deadline deadline in {@link System#nanoTime()}, or {@link AlphaBeta#NO_DEADLINE}
+     * @return the best move encoded by {@link PackedMove}, or {@link PackedMove#NONE} if there is no available move
+     * @throws java.io.UncheckedIOException if the tablebase file of the size cannot be read, see
+     *                                      {@link Tablebase#forSize(int)}
+     */
+    public int search(Game game, int maxDepth, long deadline) {
+        this.nodes = 0;
+        this.deadline = deadline;
+        this.aborted = false;
+        this.completedDepth = 0;
+        this.bestMove = PackedMove.NONE;
+        this.bestScore = 0;
+        this.prepareOrdering(game);
+        maxDepth = Math.max(1, Math.min(maxDepth, MAX_PLY));
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            if (depth < maxDepth && this.skipsDepth(depth)) {
+                continue;
+            }
+            this.rootBestMove = PackedMove.NONE;
+            var score = this.negamax(game, depth, 0, -INFINITY, INFINITY);
+            if (this.aborted) {
+                // root moves searched completely in the unfinished iteration are still usable, since the best move
+                // of the previous iteration is searched first
+                if (this.rootBestMove != PackedMove.NONE) {
+                    this.bestMove = this.rootBestMove;
+                }
+                break;
+            }
+            this.bestMove = this.rootBestMove;
+            this.bestScore = score;
+            this.completedDepth = depth;
+            if (Math.abs(score) > Evaluator.WIN_THRESHOLD) {
+                break;
+            }
+        }
+        if (this.bestMove == PackedMove.NONE) {
+            // not even the first move finished in time
+            var moves = moveLists[0];
+            game.getAvailableMoves(game.getCurrentPlayer(), moves);
+            this.bestMove = moves.isEmpty() ? PackedMove.NONE : moves.get(0);
+        }
+        return this.bestMove;
+    }
+
+    /**
+     * @param depth depth of an iteration
+     * @return whether this search is a helper that does not search the depth
+     */
+    private boolean skipsDepth(int depth) {
+        if (this.helperIndex == NO_HELPER) {
+            return false;
+        }
+        var i = this.helperIndex % SKIP_SIZE.length;
+        return (depth + SKIP_PHASE[i]) / SKIP_SIZE[i] % 2 != 0;
+    }
+
+    /**
+     * Stop the running search from another thread. The search returns the best move found so far.
+     * If the stop signal is shared, all searches sharing it are stopped.
+     */
+    public void stop() {
+        this.stopSignal.set(true);
+    }
+
+    /**
+     * Clear killer moves and age history scores before a new search
+     */
+    private void prepareOrdering(Game game) {
+        if (this.ownsStopSignal) {
+            this.stopSignal.set(false);
+        }
+        var size = game.getConfiguration().getSize();
+        this.tablebase = Tablebase.forSize(size);
+        if (this.numSquares != size * size) {
+            this.numSquares = size * size;
+            this.history = new int[numSquares * numSquares];
+        } else {
+            for (int i = 0; i < history.length; i++) {
+                history[i] /= 2;
+            }
+        }
+        for (var killer : killers) {
+            killer[0] = PackedMove.NONE;
+            killer[1] = PackedMove.NONE;
+        }
+    }
+
+    private boolean isTimeUp() {
+        if (this.stopSignal.get() || Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        return this.deadline != NO_DEADLINE && System.nanoTime() - this.deadline >= 0;
+    }
+
+    /**
+     * @param game  the game object
+     * @param depth remaining depth
+     * @param ply   number of plies from the root
+     * @param alpha lower bound of the score
+     * @param beta  upper bound of the score
+     * @return score of the position from the point of view of the player to move
+     */
+    private int negamax(Game game, int depth, int ply, int alpha, int beta) {
+        nodes++;
+        if ((nodes % CHECK_INTERVAL) == 0 && this.isTimeUp()) {
+            this.aborted = true;
+        }
+        if (this.aborted) {
+            return 0;
+        }
+        var key = game.getPositionKey();
+        var entry = table.probe(key);
+        var tableMove = PackedMove.NONE;
+        if (entry != 0) {
+            tableMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                var score = fromTable(TranspositionTable.score(entry), ply);
+                var bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || bound == TranspositionTable.BOUND_LOWER && score >= beta
+                        || bound == TranspositionTable.BOUND_UPPER && score <= alpha) {
+                    return score;
+                }
+            }
+        }
+        if (ply > 0) {
+            var value = tablebase.probe(game);
+            if (value != Tablebase.UNKNOWN) {
+                // won or lost in value plies from this ply
+                return Tablebase.isWin(value) ? Evaluator.WIN - ply - value : -(Evaluator.WIN - ply - value);
+            }
+        }
+        if (depth == 0 || ply == MAX_PLY) {
+            return Evaluator.evaluate(game);
+        }
+
+        var moves = moveLists[ply];
+        game.getAvailableMoves(game.getCurrentPlayer(), moves);
+        if (moves.isEmpty()) {
+            return Evaluator.evaluateNoMoves(game, ply);
+        }
+        this.scoreMoves(moves, ply, tableMove);
+
+        var player = game.getCurrentPlayerID();
+        var originalAlpha = alpha;
+        var bestScore = -INFINITY;
+        var bestMove = PackedMove.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            var move = this.pickMove(moves, ply, i);
+            game.makeMove(move);
+            int score;
+            var winner = game.getWinnerIndex(move);
+            if (winner >= 0) {
+                score = winner == player ? Evaluator.WIN - ply - 1 : -(Evaluator.WIN - ply - 1);
+            } else {
+                score = -this.negamax(game, depth - 1, ply + 1, -beta, -alpha);
+            }
+            game.unmakeMove();
+            if (this.aborted) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (ply == 0) {
+                    this.rootBestMove = move;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                }
+            }
+            if (alpha >= beta) {
+                if (!PackedMove.isCapture(move)) {
+                    this.recordCutoff(move, depth, ply);
+                }
+                break;
+            }
+        }
+
+        int bound;
+        if (bestScore <= originalAlpha) {
+            bound = TranspositionTable.BOUND_UPPER;
+        } else if (bestScore >= beta) {
+            bound = TranspositionTable.BOUND_LOWER;
+        } else {
+            bound = TranspositionTable.BOUND_EXACT;
+        }
+        table.store(key, depth, bound, bestMove, toTable(bestScore, ply));
+        return bestScore;
+    }
+
+    /**
+     * Compute ordering scores: the move from the transposition table first, then captures of knights, captures of
+     * archers, killer moves, and the other moves by history score.
+     */
+    private void scoreMoves(IntMoveList moves, int ply, int tableMove) {
+        if (orderScores[ply].length < moves.size()) {
+            orderScores[ply] = new int[moves.size() * 2];
+        }
+        var scores = orderScores[ply];
+        var tableSquares = PackedMove.squares(tableMove);
+        var killer = killers[ply];
+        for (int i = 0; i < moves.size(); i++) {
+            var move = moves.get(i);
+            if (tableMove != PackedMove.NONE && PackedMove.squares(move) == tableSquares) {
+                scores[i] = TABLE_MOVE_ORDER;
+            } else if (PackedMove.isCapture(move)) {
+                scores[i] = PackedMove.capturedType(move) == Bitboard.KNIGHT
+                        ? KNIGHT_CAPTURE_ORDER : ARCHER_CAPTURE_ORDER;
+            } else if (move == killer[0]) {
+                scores[i] = KILLER_ORDER + 1;
+            } else if (move == killer[1]) {
+                scores[i] = KILLER_ORDER;
+            } else {
+                scores[i] = history[PackedMove.source(move) * numSquares + PackedMove.destination(move)];
+            }
+        }
+    }
+
+    /**
+     * Record a quiet move that caused a beta cutoff as killer move and in the history
+     */
+    private void recordCutoff(int move, int depth, int ply) {
+        var killer = killers[ply];
+        if (killer[0] != move) {
+            killer[1] = killer[0];
+            killer[0] = move;
+        }
+        var index = PackedMove.source(move) * numSquares + PackedMove.destination(move);
+        history[index] += depth * depth;
+        if (history[index] >= MAX_HISTORY) {
+            for (int i = 0; i < history.length; i++) {
+                history[i] /= 2;
+            }
+        }
+    }
+
+    /**
+     * Move the best remaining move to index i (selection sort, so that moves after a cutoff are never sorted)
+     */
+    private int pickMove(IntMoveList moves, int ply, int i) {
+        var scores = orderScores[ply];
+        var best = i;
+        for (int j = i + 1; j < moves.size(); j++) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        if (best != i) {
+            moves.swap(i, best);
+            var tmp = scores[i];
+            scores[i] = scores[best];
+            scores[best] = tmp;
+        }
+        return moves.get(i);
+    }
+
+    /**
+     * Convert a win score relative to the root to a score relative to the node, for storing in the table
+     */
+    private static int toTable(int score, int ply) {
+        if (score > Evaluator.WIN_THRESHOLD) {
+            return score + ply;
+        } else if (score < -Evaluator.WIN_THRESHOLD) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Convert a win score relative to the node back to a score relative to the root
+     */
+    private static int fromTable(int score, int ply) {
+        if (score > Evaluator.WIN_THRESHOLD) {
+            return score - ply;
+        } else if (score < -Evaluator.WIN_THRESHOLD) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /* Getters start */
+    public long getNodes() {
+        return nodes;
+    }
+
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+    /* Getters end */
+}
@@ -0,0 +1,84 @@
+package castle.comp3021.assignment.player.search;
+
+import castle.comp3021.assignment.protocol.Bitboard;
+import castle.comp3021.assignment.protocol.Game;
+
+/**
+ * Static evaluation of Jeson Mor positions used by the search.
+ * <p>
+ * The evaluation counts material, with knights worth more than archers since only knights can win by leaving the
+ * central square, and rewards knights that are close to (or on) the central square.
+ */
+public final class Evaluator {
+    /**
+     * Score of a won position. A win found after n plies scores {@code WIN - n}, so that faster wins are preferred.
+     */
+    public static final int WIN = 1_000_000;
+
+    /**
+     * Scores above this (or below its negation) are wins (or losses) found by the search
+     */
+    public static final int WIN_THRESHOLD = WIN - 10_000;
+
+    private static final int KNIGHT_VALUE = 300;
+
+    private static final int ARCHER_VALUE = 200;
+
+    /**
+     * Bonus per square of the board size minus the Manhattan distance from a knight to the central square
+     */
+    private static final int KNIGHT_CENTRALITY = 4;
+
+    /**
+     * Bonus of a knight on the central square, which threatens to win by leaving it
+     */
+    private static final int KNIGHT_ON_CENTRE = 150;
+
+    private Evaluator() {
+    }
+
+    /**
+     * Evaluate a position from the point of view of the player to move
+     *
+     * @param game the game object
+     * @return positive score if the position is good for the player to move
+     */
+    public static int evaluate(Game game) {
+        var player = game.getCurrentPlayerID();
+        return evaluate(game, player) - evaluate(game, 1 - player);
+    }
+
+    private static int evaluate(Game game, int player) {
+        var bitboard = game.getBitboard();
+        var size = bitboard.getSize();
+        var centre = size / 2;
+        var score = bitboard.count(player, Bitboard.ARCHER) * ARCHER_VALUE;
+        for (int square = bitboard.nextSquare(player, Bitboard.KNIGHT, 0); square >= 0;
+             square = bitboard.nextSquare(player, Bitboard.KNIGHT, square + 1)) {
+            var distance = Math.abs(bitboard.x(square) - centre) + Math.abs(bitboard.y(square) - centre);
+            score += KNIGHT_VALUE + (size - distance) * KNIGHT_CENTRALITY;
+            if (distance == 0) {
+                score += KNIGHT_ON_CENTRE;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Score of a position in which the player to move has no available moves.
+     * Like {@link castle.comp3021.assignment.textversion.JesonMor#start()}, the player with the lower score wins, and
+     * the player to move wins if the scores are equal.
+     *
+     * @param game the game object
+     * @param ply  number of plies from the root of the search
+     * @return score from the point of view of the player to move
+     */
+    public static int evaluateNoMoves(Game game, int ply) {
+        var player = game.getCurrentPlayerID();
+        var players = game.getConfiguration().getPlayers();
+        if (players[player].getScore() <= players[1 - player].getScore()) {
+            return WIN - ply;
+        }
+        return -(WIN - ply);
+    }
+}
@@ -0,0 +1,138 @@
+package castle.comp3021.assignment.player.search;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-only data files of a directory, such as {@link OpeningBook}s and {@link Tablebase}s, which are memory-mapped
+ * when first needed and kept open.
+ * <p>
+ * A file is mapped and loaded once. A missing file is not remembered but looked for again on every call, so that a
+ * file written later in the same process is found. Loaded objects must only use absolute reads of their buffer, so
+ * that they can be shared between threads.
+ *
+ * @param <T> type of the objects loaded from the files
+ */
+final class MappedFiles<T> {
+    /**
+     * Creates an object from the contents of a file
+     *
+     * @param <T> type of the object
+     */
+    @FunctionalInterface
+    interface Loader<T> {
+        /**
+         * @param path   path of the file
+         * @param buffer the whole file, mapped read-only
+         * @return the object
+         * @throws IllegalArgumentException if the file does not have the expected format
+         */
+        T load(@NotNull Path path, @NotNull ByteBuffer buffer);
+    }
+
+    /**
+     * Kind of the files, used in error messages
+     */
+    @NotNull
+    private final String description;
+
+    @NotNull
+    private final Path directory;
+
+    /**
+     * Object returned for a missing file
+     */
+    @NotNull
+    private final T empty;
+
+    @NotNull
+    private final Loader<T> loader;
+
+    /**
+     * Objects loaded from the directory, indexed by file name
+     */
+    private final Map<String, T> loaded = new ConcurrentHashMap<>();
+
+    /**
+     * @param description kind of the files, used in error messages
+     * @param directory   directory of the files, relative to the working directory
+     * @param empty       object returned for a missing file
+     * @param loader      creates an object from the contents of a file
+     */
+    MappedFiles(@NotNull String description, @NotNull Path directory, @NotNull T empty, @NotNull Loader<T> loader) {
+        this.description = description;
+        this.directory = directory;
+        this.empty = empty;
+        this.loader = loader;
+    }
+
+    /**
+     * Map a file and load it
+     *
+     * @param path path of the file
+     * @return the loaded object
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file does not have the expected format
+     */
+    T open(@NotNull Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return loader.load(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Get the object of a file of the directory, which is opened the first time it is found
+     *
+     * @param fileName name of the file in the directory
+     * @return the loaded object, or the empty object if there is no such file
+     * @throws UncheckedIOException     if the file cannot be read
+     * @throws IllegalArgumentException if the file does not have the expected format
+     */
+    T get(@NotNull String fileName) {
+        var object = loaded.get(fileName);
+        if (object != null) {
+            return object;
+        }
+        var path = directory.resolve(fileName);
+        if (!Files.exists(path)) {
+            return empty;
+        }
+        try {
+            object = this.open(path);
+        } catch (NoSuchFileException e) {
+            return empty;
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot open " + description + " " + path, e);
+        }
+        var opened = loaded.putIfAbsent(fileName, object);
+        return opened != null ? opened : object;
+    }
+
+    /**
+     * Write a file, replacing it
+     *
+     * @param path    path of the file
+     * @param buffers contents of the file, written in order from their positions to their limits
+     * @throws IOException if the file cannot be written
+     */
+    static void write(@NotNull Path path, @NotNull ByteBuffer... buffers) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (var buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+    }
+}
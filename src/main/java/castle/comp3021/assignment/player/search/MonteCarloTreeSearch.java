@@ -0,0 +1,466 @@
+package castle.comp3021.assignment.player.search;
+
+import castle.comp3021.assignment.protocol.Game;
+import castle.comp3021.assignment.protocol.IntMoveList;
+import castle.comp3021.assignment.protocol.PackedMove;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Monte Carlo tree search with the UCT selection rule, run by several threads on one shared tree.
+ * <p>
+ * Each thread repeatedly walks down the tree on its own copy of the game with {@link Game#makeMove(int)}, adds one
+ * node, finishes the game with random moves (a playout) and updates the nodes on its path with the result. While a
+ * thread is below a node, the node counts a virtual loss, so that other threads prefer other paths.
+ * <p>
+ * Games end as in {@link castle.comp3021.assignment.textversion.JesonMor}: see {@link Game#getWinnerIndex(int)}, and
+ * if the player to move has no available moves, the player with the lower score wins. Playouts that do not end within
+ * {@link MonteCarloTreeSearch#MAX_PLAYOUT_PLIES} plies count as draws.
+ * <p>
+ * The tree is kept between searches: if the next position to search is the position after the best move or after a
+ * reply to it, the subtree of that position becomes the new tree.
+ * <p>
+ * A search is stopped early when the thread calling {@link MonteCarloTreeSearch#search} is interrupted.
+ */
+public class MonteCarloTreeSearch {
+    /**
+     * Budget value meaning that the number of playouts is not limited
+     */
+    public static final int NO_PLAYOUT_LIMIT = 0;
+
+    /**
+     * Deadline value meaning that the search is not limited by time
+     */
+    public static final long NO_DEADLINE = Long.MIN_VALUE;
+
+    /**
+     * Maximum number of random moves of a playout
+     */
+    public static final int MAX_PLAYOUT_PLIES = 200;
+
+    /**
+     * Exploration constant of UCT
+     */
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    /**
+     * Number of visits (without wins) added to a node while a thread is below it
+     */
+    private static final int VIRTUAL_LOSS = 3;
+
+    private static final double WIN = 1.0;
+
+    private static final double DRAW = 0.5;
+
+    private static final double LOSS = 0.0;
+
+    /**
+     * Winner index of a playout that ended without a winner
+     */
+    private static final int NO_WINNER = -1;
+
+    /**
+     * Root of the tree kept from the last search
+     */
+    @Nullable
+    private Node root;
+
+    /**
+     * Number of playouts run by the last search
+     */
+    private int playouts;
+
+    /**
+     * Number of visits of the root that were kept from earlier searches
+     */
+    private int reusedVisits;
+
+    /**
+     * Search a position
+     *
+     * @param game        the game, which is not changed
+     * @param maxPlayouts maximum number of playouts, or {@link MonteCarloTreeSearch#NO_PLAYOUT_LIMIT}
+     * @param deadline    deadline in {@link System#nanoTime()}, or {@link MonteCarloTreeSearch#NO_DEADLINE}
+     * @param pool        threads running the playouts; one playout loop is run on each thread of the pool
+     * @return the most visited move encoded by {@link PackedMove}, or {@link PackedMove#NONE} if there is no
+     * available move
+     */
+    public int search(Game game, int maxPlayouts, long deadline, @NotNull ForkJoinPool pool) {
+        if (maxPlayouts == NO_PLAYOUT_LIMIT && deadline == NO_DEADLINE) {
+            throw new IllegalArgumentException("search must be limited by playouts or by time");
+        }
+        var root = this.findRoot(game);
+        this.root = root;
+        this.reusedVisits = root.visits;
+
+        var counter = new AtomicInteger();
+        var stopped = new AtomicBoolean();
+        var workers = new ArrayList<ForkJoinTask<?>>();
+        for (int i = 0; i < pool.getParallelism(); i++) {
+            var copy = copyOf(game);
+            workers.add(pool.submit(() -> new Worker(copy).run(root, counter, maxPlayouts, deadline, stopped)));
+        }
+        var interrupted = false;
+        Throwable failure = null;
+        for (var worker : workers) {
+            while (true) {
+                try {
+                    worker.get();
+                    break;
+                } catch (InterruptedException e) {
+                    // stop the playouts, but still wait for them, so that the tree is not changed after the search
+                    interrupted = true;
+                    stopped.set(true);
+                } catch (ExecutionException e) {
+                    stopped.set(true);
+                    failure = failure == null ? e.getCause() : failure;
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw new IllegalStateException("playout failed", failure);
+        }
+        this.playouts = Math.min(counter.get(), maxPlayouts == NO_PLAYOUT_LIMIT ? Integer.MAX_VALUE : maxPlayouts);
+
+        var best = root.mostVisitedChild();
+        if (best != null) {
+            return best.move;
+        }
+        // no playout expanded the root
+        var moves = new IntMoveList();
+        game.getAvailableMoves(game.getCurrentPlayer(), moves);
+        return moves.isEmpty() ? PackedMove.NONE : moves.get(0);
+    }
+
+    /**
+     * Find the node of the current position in the tree of the last search, among the children and grandchildren of
+     * the root, or create a new root
+     */
+    private Node findRoot(Game game) {
+        var key = game.getPositionKey();
+        var mover = 1 - game.getCurrentPlayerID();
+        var oldRoot = this.root;
+        if (oldRoot != null) {
+            if (oldRoot.key == key && oldRoot.mover == mover) {
+                return oldRoot;
+            }
+            for (var child : oldRoot.childrenSnapshot()) {
+                if (child.key == key && child.mover == mover) {
+                    return child;
+                }
+                for (var grandchild : child.childrenSnapshot()) {
+                    if (grandchild.key == key && grandchild.mover == mover) {
+                        return grandchild;
+                    }
+                }
+            }
+        }
+        return new Node(PackedMove.NONE, mover, key, NO_WINNER, false);
+    }
+
+    /**
+     * Discard the tree kept from the last search
+     */
+    public void clear() {
+        this.root = null;
+    }
+
+    private static Game copyOf(Game game) {
+        try {
+            return game.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Winner of a position in which the player to move has no available moves: the player with the lower score, or
+     * the player to move if the scores are equal
+     */
+    private static int noMovesWinner(Game game) {
+        var player = game.getCurrentPlayerID();
+        var players = game.getConfiguration().getPlayers();
+        return players[player].getScore() <= players[1 - player].getScore() ? player : 1 - player;
+    }
+
+    /**
+     * A position in the tree, reached by {@link Node#move} of the player {@link Node#mover}.
+     * Statistics are written while holding the lock of the node and can be read without it.
+     */
+    private static final class Node {
+        private final int move;
+
+        private final int mover;
+
+        private final long key;
+
+        /**
+         * Whether the game has ended in this position
+         */
+        private volatile boolean terminal;
+
+        /**
+         * Winner of an ended game, or {@link MonteCarloTreeSearch#NO_WINNER}
+         */
+        private volatile int winner;
+
+        /**
+         * Moves not expanded yet, or null if the moves of the position have not been generated
+         */
+        private int[] untried;
+
+        private int numUntried;
+
+        private Node[] children = new Node[0];
+
+        private int numChildren;
+
+        /**
+         * Number of playouts through this node, plus virtual losses of running playouts
+         */
+        private volatile int visits;
+
+        /**
+         * Sum of the results of the playouts through this node, for {@link Node#mover}
+         */
+        private volatile double wins;
+
+        private Node(int move, int mover, long key, int winner, boolean terminal) {
+            this.move = move;
+            this.mover = mover;
+            this.key = key;
+            this.winner = winner;
+            this.terminal = terminal;
+        }
+
+        /**
+         * @param game the game in the position of this node
+         * @return a move that has not been expanded yet, or {@link PackedMove#NONE} if all moves are expanded
+         */
+        private synchronized int nextUntried(Game game, IntMoveList buffer) {
+            if (untried == null) {
+                game.getAvailableMoves(game.getCurrentPlayer(), buffer);
+                untried = buffer.toArray();
+                numUntried = untried.length;
+                if (numUntried == 0) {
+                    winner = noMovesWinner(game);
+                    terminal = true;
+                }
+            }
+            if (numUntried == 0) {
+                return PackedMove.NONE;
+            }
+            // expand in random order so that threads do not all try the same move first
+            var index = ThreadLocalRandom.current().nextInt(numUntried);
+            var move = untried[index];
+            untried[index] = untried[--numUntried];
+            return move;
+        }
+
+        private synchronized void addChild(Node child) {
+            if (numChildren == children.length) {
+                children = Arrays.copyOf(children, Math.max(4, numChildren * 2));
+            }
+            children[numChildren++] = child;
+        }
+
+        private synchronized Node[] childrenSnapshot() {
+            return Arrays.copyOf(children, numChildren);
+        }
+
+        /**
+         * @return the child with the highest UCT value, or null if there is no child
+         */
+        private Node selectChild() {
+            Node[] candidates;
+            int count;
+            synchronized (this) {
+                candidates = children;
+                count = numChildren;
+            }
+            var logVisits = Math.log(Math.max(1, visits));
+            Node best = null;
+            var bestValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                var child = candidates[i];
+                var childVisits = Math.max(1, child.visits);
+                var value = child.wins / childVisits + EXPLORATION * Math.sqrt(logVisits / childVisits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        private Node mostVisitedChild() {
+            Node best = null;
+            for (var child : this.childrenSnapshot()) {
+                if (best == null || child.visits > best.visits) {
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        private synchronized void addVirtualLoss() {
+            visits += VIRTUAL_LOSS;
+        }
+
+        /**
+         * Replace the virtual loss of a playout by its result
+         */
+        private synchronized void update(int playoutWinner) {
+            visits += 1 - VIRTUAL_LOSS;
+            if (playoutWinner == mover) {
+                wins += WIN;
+            } else if (playoutWinner == NO_WINNER) {
+                wins += DRAW;
+            } else {
+                wins += LOSS;
+            }
+        }
+    }
+
+    /**
+     * Playout loop of one thread, with its own copy of the game
+     */
+    private static final class Worker {
+        private final Game game;
+
+        private final IntMoveList moves = new IntMoveList();
+
+        private final ArrayList<Node> path = new ArrayList<>();
+
+        private Worker(Game game) {
+            this.game = game;
+        }
+
+        private void run(Node root, AtomicInteger counter, int maxPlayouts, long deadline, AtomicBoolean stopped) {
+            while (!stopped.get() && (deadline == NO_DEADLINE || System.nanoTime() - deadline < 0)) {
+                if (maxPlayouts != NO_PLAYOUT_LIMIT && counter.getAndIncrement() >= maxPlayouts) {
+                    break;
+                }
+                if (maxPlayouts == NO_PLAYOUT_LIMIT) {
+                    counter.incrementAndGet();
+                }
+                this.playout(root);
+            }
+        }
+
+        private void playout(Node root) {
+            path.clear();
+            root.addVirtualLoss();
+            path.add(root);
+            var node = root;
+            var treeMoves = 0;
+
+            // selection and expansion
+            int winner;
+            while (true) {
+                if (node.terminal) {
+                    winner = node.winner;
+                    break;
+                }
+                var move = node.nextUntried(game, moves);
+                if (move != PackedMove.NONE) {
+                    var mover = game.getCurrentPlayerID();
+                    game.makeMove(move);
+                    treeMoves++;
+                    var moveWinner = game.getWinnerIndex(move);
+                    var child = new Node(move, mover, game.getPositionKey(), moveWinner, moveWinner >= 0);
+                    child.addVirtualLoss();
+                    node.addChild(child);
+                    path.add(child);
+                    winner = moveWinner >= 0 ? moveWinner : this.randomPlayout();
+                    break;
+                }
+                if (node.terminal) {
+                    // the position has no available moves
+                    winner = node.winner;
+                    break;
+                }
+                var child = node.selectChild();
+                if (child == null) {
+                    // another thread took the last untried move but has not added its child yet
+                    winner = this.randomPlayout();
+                    break;
+                }
+                child.addVirtualLoss();
+                path.add(child);
+                game.makeMove(child.move);
+                treeMoves++;
+                node = child;
+            }
+
+            for (int i = 0; i < treeMoves; i++) {
+                game.unmakeMove();
+            }
+            for (var visited : path) {
+                visited.update(winner);
+            }
+        }
+
+        /**
+         * Play random moves until the game ends or {@link MonteCarloTreeSearch#MAX_PLAYOUT_PLIES} is reached, then
+         * restore the position
+         *
+         * @return winner index, or {@link MonteCarloTreeSearch#NO_WINNER}
+         */
+        private int randomPlayout() {
+            var random = ThreadLocalRandom.current();
+            var winner = NO_WINNER;
+            var plies = 0;
+            while (plies < MAX_PLAYOUT_PLIES) {
+                game.getAvailableMoves(game.getCurrentPlayer(), moves);
+                if (moves.isEmpty()) {
+                    winner = noMovesWinner(game);
+                    break;
+                }
+                var move = moves.get(random.nextInt(moves.size()));
+                game.makeMove(move);
+                plies++;
+                var moveWinner = game.getWinnerIndex(move);
+                if (moveWinner >= 0) {
+                    winner = moveWinner;
+                    break;
+                }
+            }
+            for (int i = 0; i < plies; i++) {
+                game.unmakeMove();
+            }
+            return winner;
+        }
+    }
+
+    /* Getters start */
+    public int getPlayouts() {
+        return playouts;
+    }
+
+    public int getReusedVisits() {
+        return reusedVisits;
+    }
+
+    /**
+     * @return number of playouts through the root of the last search, including those kept from earlier searches
+     */
+    public int getRootVisits() {
+        var root = this.root;
+        return root == null ? 0 : root.visits;
+    }
+    /* Getters end */
+}
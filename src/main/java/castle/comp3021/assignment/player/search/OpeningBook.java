@@ -0,0 +1,243 @@
+package castle.comp3021.assignment.player.search;
+
+import castle.comp3021.assignment.protocol.Game;
+import castle.comp3021.assignment.protocol.PackedMove;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Moves to play in positions of the opening, with weights, for one board size and one number of moves before capturing
+ * is allowed ({@link castle.comp3021.assignment.protocol.Configuration#getNumMovesProtection()}), since which moves are
+ * good depends on both. Books are built offline from the results of self-play, see
+ * {@link castle.comp3021.assignment.tools.OpeningBookBuilder}.
+ * <p>
+ * A book file starts with a header of five {@code int}s: {@link OpeningBook#MAGIC}, {@link OpeningBook#VERSION}, the
+ * board size, the number of moves before capturing is allowed and the number of entries. Each entry takes
+ * {@link OpeningBook#ENTRY_BYTES} bytes: the position key ({@link Game#getPositionKey()}), the move
+ * ({@link PackedMove}) and its weight. Entries are sorted by key, so the moves of a position are found by binary
+ * search.
+ * <p>
+ * The file is memory-mapped (see {@link MappedFiles}), so opening a book does not read it; only the pages touched by
+ * lookups are loaded. Books are immutable and can be used by many threads.
+ */
+public final class OpeningBook {
+    /**
+     * First {@code int} of a book file, "JMOB"
+     */
+    public static final int MAGIC = 0x4A4D4F42;
+
+    public static final int VERSION = 2;
+
+    /**
+     * Directory searched by {@link OpeningBook#forSize(int, int)}, relative to the working directory
+     */
+    public static final Path DEFAULT_DIRECTORY = Path.of("books");
+
+    private static final int HEADER_BYTES = 5 * Integer.BYTES;
+
+    private static final int ENTRY_BYTES = Long.BYTES + 2 * Integer.BYTES;
+
+    /**
+     * Book without any entries
+     */
+    private static final OpeningBook EMPTY = new OpeningBook(0, 0, ByteBuffer.allocate(0), 0);
+
+    /**
+     * Books of {@link OpeningBook#DEFAULT_DIRECTORY}, opened when first needed
+     */
+    private static final MappedFiles<OpeningBook> DEFAULT_BOOKS =
+            new MappedFiles<>("opening book", DEFAULT_DIRECTORY, EMPTY, OpeningBook::load);
+
+    private final int size;
+
+    private final int numMovesProtection;
+
+    /**
+     * The mapped file, which is only read with absolute reads
+     */
+    @NotNull
+    private final ByteBuffer buffer;
+
+    private final int numEntries;
+
+    private OpeningBook(int size, int numMovesProtection, @NotNull ByteBuffer buffer, int numEntries) {
+        this.size = size;
+        this.numMovesProtection = numMovesProtection;
+        this.buffer = buffer;
+        this.numEntries = numEntries;
+    }
+
+    /**
+     * Open a book file
+     *
+     * @param path path of the file
+     * @return the book
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a book
+     */
+    public static OpeningBook open(@NotNull Path path) throws IOException {
+        return DEFAULT_BOOKS.open(path);
+    }
+
+    private static OpeningBook load(@NotNull Path path, @NotNull ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException(path + " is not an opening book");
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IllegalArgumentException(path + " has unsupported version " + buffer.getInt(Integer.BYTES));
+        }
+        var size = buffer.getInt(2 * Integer.BYTES);
+        var numMovesProtection = buffer.getInt(3 * Integer.BYTES);
+        var numEntries = buffer.getInt(4 * Integer.BYTES);
+        if (numEntries < 0 || buffer.capacity() != HEADER_BYTES + (long) numEntries * ENTRY_BYTES) {
+            throw new IllegalArgumentException(path + " is truncated");
+        }
+        return new OpeningBook(size, numMovesProtection, buffer, numEntries);
+    }
+
+    /**
+     * Get the book of a board size and a number of moves before capturing is allowed in
+     * {@link OpeningBook#DEFAULT_DIRECTORY}.
+     *
+     * @param size               size of the gameboard
+     * @param numMovesProtection number of moves before capturing is allowed
+     * @return the book, or an empty book if there is no book file of the size and number of moves
+     * @throws UncheckedIOException     if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a book, or a book of another size or number of moves
+     */
+    public static OpeningBook forSize(int size, int numMovesProtection) {
+        var fileName = fileName(size, numMovesProtection);
+        var book = DEFAULT_BOOKS.get(fileName);
+        if (book != EMPTY && (book.size != size || book.numMovesProtection != numMovesProtection)) {
+            throw new IllegalArgumentException(DEFAULT_DIRECTORY.resolve(fileName) + " is a book of size " + book.size
+                    + " with " + book.numMovesProtection + " moves of protection");
+        }
+        return book;
+    }
+
+    /**
+     * @param size               size of the gameboard
+     * @param numMovesProtection number of moves before capturing is allowed
+     * @return name of the book file of the size and number of moves in {@link OpeningBook#DEFAULT_DIRECTORY}
+     */
+    public static String fileName(int size, int numMovesProtection) {
+        return "opening-" + size + "-" + numMovesProtection + ".book";
+    }
+
+    /**
+     * Write a book file
+     *
+     * @param path               path of the file, which is replaced
+     * @param size               size of the gameboard
+     * @param numMovesProtection number of moves before capturing is allowed in the games of the book
+     * @param entries            weights of moves ({@link PackedMove}) indexed by position key; moves with weight 0 are
+     *                           left out
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(@NotNull Path path, int size, int numMovesProtection,
+                             @NotNull Map<Long, Map<Integer, Integer>> entries) throws IOException {
+        var keys = new ArrayList<>(entries.keySet());
+        keys.sort(null);
+        var numEntries = 0;
+        for (var moves : entries.values()) {
+            numEntries += (int) moves.values().stream().filter(weight -> weight > 0).count();
+        }
+        var buffer = ByteBuffer.allocate(HEADER_BYTES + numEntries * ENTRY_BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(numMovesProtection).putInt(numEntries);
+        for (var key : keys) {
+            for (var move : entries.get(key).entrySet()) {
+                if (move.getValue() > 0) {
+                    buffer.putLong(key).putInt(move.getKey()).putInt(move.getValue());
+                }
+            }
+        }
+        MappedFiles.write(path, buffer.flip());
+    }
+
+    /**
+     * Choose a move of the book for the current position of a game, at random in proportion to the weights of the
+     * moves. Moves that are not available in the position (which can only happen if two positions have the same key)
+     * are never chosen.
+     *
+     * @param game the game
+     * @return the move encoded by {@link PackedMove}, or {@link PackedMove#NONE} if the position is not in the book, or
+     * the game has another size or number of moves before capturing is allowed than the book
+     */
+    public int probe(@NotNull Game game) {
+        if (numEntries == 0 || game.getConfiguration().getSize() != size
+                || game.getConfiguration().getNumMovesProtection() != numMovesProtection) {
+            return PackedMove.NONE;
+        }
+        var key = game.getPositionKey();
+        var first = this.lowerBound(key);
+        long totalWeight = 0;
+        var end = first;
+        for (; end < numEntries && this.keyAt(end) == key; end++) {
+            totalWeight += this.weightAt(end);
+        }
+        if (totalWeight == 0) {
+            return PackedMove.NONE;
+        }
+        var chosen = ThreadLocalRandom.current().nextLong(totalWeight);
+        for (int i = first; i < end; i++) {
+            chosen -= this.weightAt(i);
+            if (chosen < 0) {
+                var move = this.moveAt(i);
+                var legalMoves = game.getLegalMoves(game.getCurrentPlayer());
+                return legalMoves.isLegal(PackedMove.source(move), PackedMove.destination(move))
+                        ? move : PackedMove.NONE;
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    /**
+     * @return index of the first entry with a key not less than the given key
+     */
+    private int lowerBound(long key) {
+        var low = 0;
+        var high = numEntries;
+        while (low < high) {
+            var middle = (low + high) >>> 1;
+            if (this.keyAt(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return buffer.getLong(HEADER_BYTES + index * ENTRY_BYTES);
+    }
+
+    private int moveAt(int index) {
+        return buffer.getInt(HEADER_BYTES + index * ENTRY_BYTES + Long.BYTES);
+    }
+
+    private int weightAt(int index) {
+        return buffer.getInt(HEADER_BYTES + index * ENTRY_BYTES + Long.BYTES + Integer.BYTES);
+    }
+
+    /* Getters start */
+    public int getSize() {
+        return size;
+    }
+
+    public int getNumMovesProtection() {
+        return numMovesProtection;
+    }
+
+    public int getNumEntries() {
+        return numEntries;
+    }
+    /* Getters end */
+}
@@ -0,0 +1,257 @@
+package castle.comp3021.assignment.player.search;
+
+import castle.comp3021.assignment.protocol.Bitboard;
+import castle.comp3021.assignment.protocol.Game;
+import castle.comp3021.assignment.protocol.IntMoveList;
+import castle.comp3021.assignment.protocol.PackedMove;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Exact results of endgame positions with few pieces on a small board, computed by retrograde analysis, see
+ * {@link castle.comp3021.assignment.tools.TablebaseGenerator}.
+ * <p>
+ * The value of a position is one byte: the number of plies until the game is won by the player to move (odd
+ * numbers) or lost by the player to move (even numbers), if both players play the best moves, or
+ * {@link Tablebase#UNKNOWN}. A value is unknown if the game can go on forever, if it may end because a player has no
+ * available moves (the winner then depends on the scores, which are not part of the position), or if the distance is
+ * more than {@link Tablebase#MAX_DISTANCE}. Values assume that capturing is allowed, so they are only used once
+ * {@link castle.comp3021.assignment.protocol.Configuration#getNumMovesProtection()} moves have been made.
+ * <p>
+ * A tablebase file has a header of four {@code int}s: {@link Tablebase#MAGIC}, {@link Tablebase#VERSION}, the board
+ * size and the maximum number of pieces, followed by the values of all positions in the order of
+ * {@link TablebaseLayout}. The file is memory-mapped (see {@link MappedFiles}), so a lookup reads one byte at a
+ * computed offset.
+ */
+public final class Tablebase {
+    /**
+     * First {@code int} of a tablebase file, "JMTB"
+     */
+    public static final int MAGIC = 0x4A4D5442;
+
+    public static final int VERSION = 1;
+
+    /**
+     * Directory searched by {@link Tablebase#forSize(int)}, relative to the working directory
+     */
+    public static final Path DEFAULT_DIRECTORY = Path.of("tablebases");
+
+    /**
+     * Value of positions whose result is not known
+     */
+    public static final int UNKNOWN = 0;
+
+    /**
+     * Largest distance that can be stored
+     */
+    public static final int MAX_DISTANCE = 255;
+
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+
+    /**
+     * Tablebase without any positions
+     */
+    public static final Tablebase EMPTY = new Tablebase(null, ByteBuffer.allocate(0));
+
+    /**
+     * Tablebases of {@link Tablebase#DEFAULT_DIRECTORY}, opened when first needed
+     */
+    private static final MappedFiles<Tablebase> DEFAULT_TABLEBASES =
+            new MappedFiles<>("tablebase", DEFAULT_DIRECTORY, EMPTY, Tablebase::load);
+
+    @Nullable
+    private final TablebaseLayout layout;
+
+    /**
+     * The mapped file, which is only read with absolute reads
+     */
+    @NotNull
+    private final ByteBuffer buffer;
+
+    private Tablebase(@Nullable TablebaseLayout layout, @NotNull ByteBuffer buffer) {
+        this.layout = layout;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Open a tablebase file
+     *
+     * @param path path of the file
+     * @return the tablebase
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a tablebase
+     */
+    public static Tablebase open(@NotNull Path path) throws IOException {
+        return DEFAULT_TABLEBASES.open(path);
+    }
+
+    private static Tablebase load(@NotNull Path path, @NotNull ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException(path + " is not a tablebase");
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IllegalArgumentException(path + " has unsupported version " + buffer.getInt(Integer.BYTES));
+        }
+        var layout = new TablebaseLayout(buffer.getInt(2 * Integer.BYTES), buffer.getInt(3 * Integer.BYTES));
+        if (buffer.capacity() != HEADER_BYTES + layout.getTotalPositions()) {
+            throw new IllegalArgumentException(path + " is truncated");
+        }
+        return new Tablebase(layout, buffer);
+    }
+
+    /**
+     * Get the tablebase of a board size in {@link Tablebase#DEFAULT_DIRECTORY}.
+     *
+     * @param size size of the gameboard
+     * @return the tablebase, or an empty tablebase if there is no tablebase file of the size
+     * @throws UncheckedIOException     if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a tablebase
+     */
+    public static Tablebase forSize(int size) {
+        return DEFAULT_TABLEBASES.get(fileName(size));
+    }
+
+    /**
+     * @param size size of the gameboard
+     * @return name of the tablebase file of the size in {@link Tablebase#DEFAULT_DIRECTORY}
+     */
+    public static String fileName(int size) {
+        return "tablebase-" + size + ".tb";
+    }
+
+    /**
+     * Write a tablebase file
+     *
+     * @param path   path of the file, which is replaced
+     * @param layout layout of the tablebase
+     * @param values values of the positions of each table of the layout
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(@NotNull Path path, @NotNull TablebaseLayout layout, byte[][] values)
+            throws IOException {
+        if (HEADER_BYTES + layout.getTotalPositions() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("tablebase too large");
+        }
+        var buffers = new ByteBuffer[1 + layout.getNumTables()];
+        buffers[0] = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC).putInt(VERSION).putInt(layout.getSize()).putInt(layout.getMaxPieces()).flip();
+        for (int table = 0; table < layout.getNumTables(); table++) {
+            buffers[1 + table] = ByteBuffer.wrap(values[table]);
+        }
+        MappedFiles.write(path, buffers);
+    }
+
+    /**
+     * @param value value of a position other than {@link Tablebase#UNKNOWN}
+     * @return whether the player to move wins
+     */
+    public static boolean isWin(int value) {
+        return (value & 1) != 0;
+    }
+
+    /**
+     * Check whether the tablebase may know the current position of a game. This only counts pieces, so it is cheap
+     * enough to be checked in every node of a search.
+     *
+     * @param game the game
+     * @return whether the position has few enough pieces and capturing is allowed
+     */
+    public boolean covers(@NotNull Game game) {
+        if (layout == null || game.getConfiguration().getSize() != layout.getSize()
+                || game.getNumMoves() < game.getConfiguration().getNumMovesProtection()) {
+            return false;
+        }
+        var bitboard = game.getBitboard();
+        return bitboard.count(0) + bitboard.count(1) <= layout.getMaxPieces();
+    }
+
+    /**
+     * Look up the current position of a game
+     *
+     * @param game the game
+     * @return value of the position, {@link Tablebase#UNKNOWN} if it is not known or not covered by the tablebase
+     */
+    public int probe(@NotNull Game game) {
+        if (!this.covers(game)) {
+            return UNKNOWN;
+        }
+        assert layout != null;
+        var bitboard = game.getBitboard();
+        var counts = new int[TablebaseLayout.NUM_GROUPS];
+        for (int player = 0; player < Bitboard.NUM_PLAYERS; player++) {
+            for (int type = 0; type < Bitboard.NUM_TYPES; type++) {
+                counts[player * Bitboard.NUM_TYPES + type] = bitboard.count(player, type);
+            }
+        }
+        var table = layout.table(counts);
+        if (table < 0) {
+            return UNKNOWN;
+        }
+        var squares = new int[layout.getMaxPieces()];
+        long index = 0;
+        for (int group = 0; group < TablebaseLayout.NUM_GROUPS; group++) {
+            var player = group / Bitboard.NUM_TYPES;
+            var type = group % Bitboard.NUM_TYPES;
+            var count = 0;
+            for (int square = bitboard.nextSquare(player, type, 0); square >= 0;
+                 square = bitboard.nextSquare(player, type, square + 1)) {
+                squares[count++] = square;
+            }
+            index = index * layout.numCombinations(table, group) + layout.rank(squares, count);
+        }
+        index = index * Bitboard.NUM_PLAYERS + game.getCurrentPlayerID();
+        return Byte.toUnsignedInt(buffer.get((int) (HEADER_BYTES + layout.getOffset(table) + index)));
+    }
+
+    /**
+     * Find the best move of a known position: the fastest win, or the slowest loss
+     *
+     * @param game the game, which is restored to the same position afterwards
+     * @return the move encoded by {@link PackedMove}, or {@link PackedMove#NONE} if the position is not known
+     */
+    public int bestMove(@NotNull Game game) {
+        if (this.probe(game) == UNKNOWN) {
+            return PackedMove.NONE;
+        }
+        var player = game.getCurrentPlayerID();
+        var moves = new IntMoveList();
+        game.getAvailableMoves(game.getCurrentPlayer(), moves);
+        var bestMove = PackedMove.NONE;
+        // wins are ranked by distance, then unknown results, then losses by distance
+        var bestRank = Integer.MIN_VALUE;
+        for (int i = 0; i < moves.size(); i++) {
+            var move = moves.get(i);
+            game.makeMove(move);
+            int rank;
+            var winner = game.getWinnerIndex(move);
+            if (winner >= 0) {
+                rank = winner == player ? Integer.MAX_VALUE : Integer.MIN_VALUE + 1;
+            } else {
+                var value = this.probe(game);
+                if (value == UNKNOWN) {
+                    rank = 0;
+                } else {
+                    // the value is from the point of view of the opponent
+                    rank = isWin(value) ? -(MAX_DISTANCE + 1 - value) : MAX_DISTANCE + 1 - value;
+                }
+            }
+            game.unmakeMove();
+            if (rank > bestRank) {
+                bestRank = rank;
+                bestMove = move;
+            }
+        }
+        return bestMove;
+    }
+
+    /* Getters start */
+    public @Nullable TablebaseLayout getLayout() {
+        return layout;
+    }
+    /* Getters end */
+}
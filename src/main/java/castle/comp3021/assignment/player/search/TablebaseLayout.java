@@ -0,0 +1,233 @@
+package castle.comp3021.assignment.player.search;
+
+import castle.comp3021.assignment.protocol.Bitboard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * How the positions of a {@link Tablebase} are numbered.
+ * <p>
+ * Positions are grouped by material signature: the number of pieces of each group (player and piece type, group
+ * {@code player * Bitboard.NUM_TYPES + type}). A tablebase has one table for every signature in which both players
+ * have at least one piece and there are at most a maximum number of pieces, ordered by the total number of pieces
+ * (so that a capture always leads to an earlier table) and then by the counts of the groups.
+ * <p>
+ * Within a table, the squares of each group (square indices of {@link Bitboard}) are a combination numbered by its
+ * colexicographic rank, and the index of a position is
+ * {@code (rank(group 0) * C(n, count 1) * ... + rank(group 3)) * 2 + player to move}, where {@code n} is the number of
+ * squares. Indices whose groups share a square are not positions and are never used.
+ */
+public final class TablebaseLayout {
+    /**
+     * Number of piece groups: each player has a group of knights and a group of archers
+     */
+    public static final int NUM_GROUPS = Bitboard.NUM_PLAYERS * Bitboard.NUM_TYPES;
+
+    private final int size;
+
+    private final int maxPieces;
+
+    private final int numSquares;
+
+    /**
+     * Binomial coefficients C(n, k) for n up to the number of squares and k up to the maximum number of pieces
+     */
+    private final long[][] binomials;
+
+    /**
+     * Group counts of each table
+     */
+    private final int[][] counts;
+
+    /**
+     * Offset of each table in the tablebase, in positions; the last element is the total number of positions
+     */
+    private final long[] offsets;
+
+    /**
+     * Table indexed by {@link TablebaseLayout#code(int[])}, or -1 if there is no table of the signature
+     */
+    private final int[] tables;
+
+    /**
+     * @param size      size of the gameboard
+     * @param maxPieces maximum number of pieces on the gameboard
+     */
+    public TablebaseLayout(int size, int maxPieces) {
+        if (maxPieces < Bitboard.NUM_PLAYERS) {
+            throw new IllegalArgumentException("a tablebase needs at least " + Bitboard.NUM_PLAYERS + " pieces");
+        }
+        this.size = size;
+        this.maxPieces = maxPieces;
+        this.numSquares = size * size;
+        this.binomials = new long[numSquares + 1][maxPieces + 1];
+        for (int n = 0; n <= numSquares; n++) {
+            binomials[n][0] = 1;
+            for (int k = 1; k <= Math.min(n, maxPieces); k++) {
+                binomials[n][k] = binomials[n - 1][k - 1] + binomials[n - 1][k];
+            }
+        }
+
+        var signatures = new ArrayList<int[]>();
+        for (int total = Bitboard.NUM_PLAYERS; total <= maxPieces; total++) {
+            for (int code = 0; code < this.numCodes(); code++) {
+                var signature = this.decode(code);
+                if (Arrays.stream(signature).sum() == total && signature[0] + signature[1] > 0
+                        && signature[2] + signature[3] > 0) {
+                    signatures.add(signature);
+                }
+            }
+        }
+        this.counts = signatures.toArray(new int[0][]);
+        this.offsets = new long[counts.length + 1];
+        this.tables = new int[this.numCodes()];
+        Arrays.fill(tables, -1);
+        for (int table = 0; table < counts.length; table++) {
+            offsets[table + 1] = offsets[table] + this.numPositions(counts[table]);
+            tables[this.code(counts[table])] = table;
+        }
+    }
+
+    private int numCodes() {
+        var codes = 1;
+        for (int group = 0; group < NUM_GROUPS; group++) {
+            codes *= maxPieces + 1;
+        }
+        return codes;
+    }
+
+    /**
+     * @param counts number of pieces of each group
+     * @return a number identifying the signature
+     */
+    private int code(int[] counts) {
+        var code = 0;
+        for (int group = 0; group < NUM_GROUPS; group++) {
+            code = code * (maxPieces + 1) + counts[group];
+        }
+        return code;
+    }
+
+    private int[] decode(int code) {
+        var counts = new int[NUM_GROUPS];
+        for (int group = NUM_GROUPS - 1; group >= 0; group--) {
+            counts[group] = code % (maxPieces + 1);
+            code /= maxPieces + 1;
+        }
+        return counts;
+    }
+
+    private long numPositions(int[] counts) {
+        long positions = Bitboard.NUM_PLAYERS;
+        for (int group = 0; group < NUM_GROUPS; group++) {
+            positions *= binomials[numSquares][counts[group]];
+        }
+        return positions;
+    }
+
+    /**
+     * Find the table of a signature
+     *
+     * @param counts number of pieces of each group
+     * @return the table, or -1 if the tablebase has no table of the signature
+     */
+    public int table(int[] counts) {
+        var total = 0;
+        for (int group = 0; group < NUM_GROUPS; group++) {
+            if (counts[group] < 0 || counts[group] > maxPieces) {
+                return -1;
+            }
+            total += counts[group];
+        }
+        return total > maxPieces ? -1 : tables[this.code(counts)];
+    }
+
+    /**
+     * Number a combination of squares
+     *
+     * @param squares squares in ascending order
+     * @param count   number of squares
+     * @return the colexicographic rank of the combination
+     */
+    public long rank(int[] squares, int count) {
+        long rank = 0;
+        for (int i = 0; i < count; i++) {
+            rank += binomials[squares[i]][i + 1];
+        }
+        return rank;
+    }
+
+    /**
+     * Find the combination of squares with a rank
+     *
+     * @param rank    colexicographic rank
+     * @param count   number of squares
+     * @param squares filled with the squares in ascending order
+     */
+    public void unrank(long rank, int count, int[] squares) {
+        var square = numSquares - 1;
+        for (int i = count; i > 0; i--) {
+            while (binomials[square][i] > rank) {
+                square--;
+            }
+            squares[i - 1] = square;
+            rank -= binomials[square][i];
+            square--;
+        }
+    }
+
+    /**
+     * @param table table
+     * @param group piece group
+     * @return number of combinations of the squares of the group
+     */
+    public long numCombinations(int table, int group) {
+        return binomials[numSquares][counts[table][group]];
+    }
+
+    /* Getters start */
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    public int getNumTables() {
+        return counts.length;
+    }
+
+    /**
+     * @param table table
+     * @return number of pieces of each group; the array must not be changed
+     */
+    public int[] getCounts(int table) {
+        return counts[table];
+    }
+
+    /**
+     * @param table table
+     * @return index of the first position of the table in the tablebase
+     */
+    public long getOffset(int table) {
+        return offsets[table];
+    }
+
+    /**
+     * @param table table
+     * @return number of positions of the table, including indices that are not positions
+     */
+    public long getNumPositions(int table) {
+        return offsets[table + 1] - offsets[table];
+    }
+
+    /**
+     * @return number of positions of all tables
+     */
+    public long getTotalPositions() {
+        return offsets[counts.length];
+    }
+    /* Getters end */
+}
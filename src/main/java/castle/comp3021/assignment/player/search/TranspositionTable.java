@@ -0,0 +1,267 @@
+package castle.comp3021.assignment.player.search;
+
+import castle.comp3021.assignment.protocol.PackedMove;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size hash table of search results, keyed by {@link castle.comp3021.assignment.protocol.Game#getPositionKey()}.
+ * <p>
+ * The table is backed by two {@code long} arrays and never allocates after construction. Each bucket has two slots:
+ * the first one is replaced according to the {@link ReplacementPolicy}, the second one is always replaced by results
+ * that are not kept in the first slot. An entry packs the best move, the depth, the bound type and the score into one
+ * {@code long}, see {@link TranspositionTable#probe(long)}.
+ * <p>
+ * The table can be shared by searches running in parallel without locking. Each slot stores its key XORed with its
+ * data, so a slot whose key and data were written by different threads does not match any position and is ignored.
+ */
+public class TranspositionTable {
+    /**
+     * How the first slot of a bucket is replaced
+     */
+    public enum ReplacementPolicy {
+        /**
+         * Keep the result of the deeper search in the first slot; other results go to the second slot
+         */
+        DEPTH_PREFERRED,
+        /**
+         * Always put the newest result in the first slot; the replaced result moves to the second slot
+         */
+        ALWAYS_REPLACE,
+    }
+
+    /**
+     * Bound type of an empty entry
+     */
+    public static final int BOUND_NONE = 0;
+
+    /**
+     * The score is a lower bound (the search failed high)
+     */
+    public static final int BOUND_LOWER = 1;
+
+    /**
+     * The score is an upper bound (the search failed low)
+     */
+    public static final int BOUND_UPPER = 2;
+
+    /**
+     * The score is exact
+     */
+    public static final int BOUND_EXACT = 3;
+
+    /**
+     * Default memory budget in megabytes
+     */
+    public static final int DEFAULT_SIZE_MB = 16;
+
+    /**
+     * Bytes used by one slot: one key and one data word
+     */
+    private static final int BYTES_PER_SLOT = 2 * Long.BYTES;
+
+    private static final int SLOTS_PER_BUCKET = 2;
+
+    private static final int MOVE_BITS = 22;
+
+    private static final int DEPTH_SHIFT = MOVE_BITS;
+
+    private static final int BOUND_SHIFT = DEPTH_SHIFT + 8;
+
+    private static final int SCORE_SHIFT = 32;
+
+    private final ReplacementPolicy policy;
+
+    private final int bucketMask;
+
+    /**
+     * Keys of the slots, XORed with the data so that an entry torn by concurrent writes is never accepted
+     */
+    private final long[] keys;
+
+    /**
+     * Packed data of the slots
+     */
+    private final long[] data;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder collisions = new LongAdder();
+
+    /**
+     * @param sizeMB memory budget in megabytes, the table uses the largest power-of-two number of buckets within it
+     * @param policy replacement policy of the first slot of each bucket
+     */
+    public TranspositionTable(int sizeMB, ReplacementPolicy policy) {
+        if (sizeMB < 1) {
+            throw new IllegalArgumentException("size of transposition table must be at least 1 MB");
+        }
+        var numBuckets = Long.highestOneBit((long) sizeMB * 1024 * 1024 / (BYTES_PER_SLOT * SLOTS_PER_BUCKET));
+        // array length must fit into an int
+        numBuckets = Math.min(numBuckets, 1L << 29);
+        this.policy = policy;
+        this.bucketMask = (int) numBuckets - 1;
+        this.keys = new long[(int) numBuckets * SLOTS_PER_BUCKET];
+        this.data = new long[(int) numBuckets * SLOTS_PER_BUCKET];
+    }
+
+    public TranspositionTable(int sizeMB) {
+        this(sizeMB, ReplacementPolicy.DEPTH_PREFERRED);
+    }
+
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_MB);
+    }
+
+    /**
+     * Look up a position.
+     * The returned entry can be decoded with {@link TranspositionTable#move(long)},
+     * {@link TranspositionTable#depth(long)}, {@link TranspositionTable#bound(long)} and
+     * {@link TranspositionTable#score(long)}.
+     *
+     * @param key position key
+     * @return the entry, or 0 if the position is not in the table
+     */
+    public long probe(long key) {
+        var index = this.indexOf(key);
+        var occupied = false;
+        for (int slot = index; slot < index + SLOTS_PER_BUCKET; slot++) {
+            var entry = data[slot];
+            if (entry == 0) {
+                continue;
+            }
+            if ((keys[slot] ^ entry) == key) {
+                hits.increment();
+                return entry;
+            }
+            occupied = true;
+        }
+        misses.increment();
+        if (occupied) {
+            collisions.increment();
+        }
+        return 0;
+    }
+
+    /**
+     * Store a search result
+     *
+     * @param key   position key
+     * @param depth remaining depth of the search, at most 255
+     * @param bound one of {@link TranspositionTable#BOUND_LOWER}, {@link TranspositionTable#BOUND_UPPER} and
+     *              {@link TranspositionTable#BOUND_EXACT}
+     * @param move  best move encoded by {@link PackedMove}, or {@link PackedMove#NONE}
+     * @param score score of the position
+     */
+    public void store(long key, int depth, int bound, int move, int score) {
+        var entry = pack(depth, bound, move, score);
+        var first = this.indexOf(key);
+        var second = first + 1;
+        var firstEntry = data[first];
+        var firstKey = keys[first] ^ firstEntry;
+        var secondEntry = data[second];
+        if (secondEntry != 0 && (keys[second] ^ secondEntry) == key && firstKey != key) {
+            // the position is already in the second slot
+            this.write(second, key, entry);
+            return;
+        }
+        var replaceFirst = switch (policy) {
+            case DEPTH_PREFERRED -> firstEntry == 0 || firstKey == key || depth >= depth(firstEntry);
+            case ALWAYS_REPLACE -> true;
+        };
+        if (!replaceFirst) {
+            this.write(second, key, entry);
+            return;
+        }
+        if (firstEntry != 0 && firstKey != key) {
+            // keep the replaced result of another position in the second slot
+            this.write(second, firstKey, firstEntry);
+        }
+        this.write(first, key, entry);
+    }
+
+    private void write(int slot, long key, long entry) {
+        keys[slot] = key ^ entry;
+        data[slot] = entry;
+    }
+
+    private int indexOf(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) * SLOTS_PER_BUCKET;
+    }
+
+    private static long pack(int depth, int bound, int move, int score) {
+        return (move & ((1L << MOVE_BITS) - 1))
+                | ((long) Math.min(depth, 255) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) score << SCORE_SHIFT);
+    }
+
+    /* Entry decoders start */
+    public static int move(long entry) {
+        return (int) (entry & ((1L << MOVE_BITS) - 1));
+    }
+
+    public static int depth(long entry) {
+        return (int) ((entry >>> DEPTH_SHIFT) & 0xFF);
+    }
+
+    public static int bound(long entry) {
+        return (int) ((entry >>> BOUND_SHIFT) & 0x3);
+    }
+
+    public static int score(long entry) {
+        return (int) (entry >> SCORE_SHIFT);
+    }
+    /* Entry decoders end */
+
+    /**
+     * Remove all entries and reset the counters. Must not be called while the table is used by a search.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+        hits.reset();
+        misses.reset();
+        collisions.reset();
+    }
+
+    /* Getters start */
+    public int getCapacity() {
+        return data.length;
+    }
+
+    public ReplacementPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return number of probes that found the position
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of probes that did not find the position
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of probes that did not find the position while its bucket was used by other positions
+     */
+    public long getCollisions() {
+        return collisions.sum();
+    }
+    /* Getters end */
+
+    @Override
+    public String toString() {
+        return String.format("TranspositionTable[capacity=%d, hits=%d, misses=%d, collisions=%d]",
+                getCapacity(), getHits(), getMisses(), getCollisions());
+    }
+}
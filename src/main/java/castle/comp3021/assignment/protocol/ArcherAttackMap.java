@@ -0,0 +1,250 @@
+package castle.comp3021.assignment.protocol;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Squares that the archers of each player can capture on, or capture through.
+ * <p>
+ * An archer captures an enemy piece on the same line (same x or same y) with exactly one piece in between, the screen.
+ * For each player, two sets of squares are kept:
+ * <ul>
+ *     <li>targets: squares of enemy pieces that an archer of the player can capture</li>
+ *     <li>screens: squares that are a screen of such a capture, or would be if a piece was put there. These are the
+ *     squares whose nearest pieces on one line, one on each side, are an archer of the player and an enemy piece.</li>
+ * </ul>
+ * The capture protection of the first moves ({@link Configuration#getNumMovesProtection()}) is not considered.
+ * <p>
+ * When a piece is put on or removed from a square, only the line along x and the line along y through that square
+ * can change. {@link ArcherAttackMap#markChanged(int)} only marks these two lines, so that making and unmaking moves in
+ * a search stays cheap, and {@link ArcherAttackMap#refresh()} recomputes the marked lines. A reader refreshes the map
+ * once, after which queries only read the sets and take constant time.
+ */
+public class ArcherAttackMap implements Cloneable {
+    @NotNull
+    private Bitboard bitboard;
+
+    private final int size;
+
+    /**
+     * Targets found on lines of the same x, indexed by player
+     */
+    private long[][] targetsOfX;
+
+    /**
+     * Targets found on lines of the same y, indexed by player
+     */
+    private long[][] targetsOfY;
+
+    /**
+     * Screens found on lines of the same x, indexed by player
+     */
+    private long[][] screensOfX;
+
+    /**
+     * Screens found on lines of the same y, indexed by player
+     */
+    private long[][] screensOfY;
+
+    /**
+     * Whether the line of each x has changed since the last refresh
+     */
+    private boolean[] changedX;
+
+    /**
+     * Whether the line of each y has changed since the last refresh
+     */
+    private boolean[] changedY;
+
+    /**
+     * Whether any line has changed since the last refresh
+     */
+    private boolean changed;
+
+    /**
+     * @param bitboard the bitboard whose pieces are tracked
+     */
+    public ArcherAttackMap(@NotNull Bitboard bitboard) {
+        this.bitboard = bitboard;
+        this.size = bitboard.getSize();
+        var numWords = bitboard.getNumWords();
+        this.targetsOfX = new long[Bitboard.NUM_PLAYERS][numWords];
+        this.targetsOfY = new long[Bitboard.NUM_PLAYERS][numWords];
+        this.screensOfX = new long[Bitboard.NUM_PLAYERS][numWords];
+        this.screensOfY = new long[Bitboard.NUM_PLAYERS][numWords];
+        this.changedX = new boolean[size];
+        this.changedY = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            this.recomputeLineOfX(i);
+            this.recomputeLineOfY(i);
+        }
+    }
+
+    /**
+     * Mark the lines through a square as changed. Must be called whenever a piece is put on or removed from the square.
+     *
+     * @param square square index
+     */
+    public void markChanged(int square) {
+        this.changedX[bitboard.x(square)] = true;
+        this.changedY[bitboard.y(square)] = true;
+        this.changed = true;
+    }
+
+    /**
+     * Recompute the lines that have changed since the last refresh, so that the map matches the bitboard. Must be
+     * called before queries, by the thread that changes the bitboard.
+     */
+    public void refresh() {
+        if (!this.changed) {
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            if (this.changedX[i]) {
+                this.changedX[i] = false;
+                this.recomputeLineOfX(i);
+            }
+            if (this.changedY[i]) {
+                this.changedY[i] = false;
+                this.recomputeLineOfY(i);
+            }
+        }
+        this.changed = false;
+    }
+
+    /**
+     * @param square square index
+     * @param player player index
+     * @return whether an archer of the player can capture the piece on the square
+     * @throws IllegalStateException if the map has changed since the last refresh
+     */
+    public boolean isTarget(int square, int player) {
+        this.checkRefreshed();
+        return contains(targetsOfX[player], square) || contains(targetsOfY[player], square);
+    }
+
+    /**
+     * @param square square index
+     * @param player player index
+     * @return whether a piece on the square is, or would be, the screen of a capture by an archer of the player
+     * @throws IllegalStateException if the map has changed since the last refresh
+     */
+    public boolean isScreen(int square, int player) {
+        this.checkRefreshed();
+        return contains(screensOfX[player], square) || contains(screensOfY[player], square);
+    }
+
+    private void checkRefreshed() {
+        if (this.changed) {
+            throw new IllegalStateException("archer attack map is queried before it is refreshed");
+        }
+    }
+
+    private static boolean contains(long[] set, int square) {
+        return (set[square >>> 6] & (1L << square)) != 0;
+    }
+
+    /**
+     * Recompute the line of squares (x, 0), (x, 1), ..., which are consecutive
+     */
+    private void recomputeLineOfX(int x) {
+        this.recomputeLine(bitboard.square(x, 0), 1, targetsOfX, screensOfX);
+    }
+
+    /**
+     * Recompute the line of squares (0, y), (1, y), ...
+     */
+    private void recomputeLineOfY(int y) {
+        this.recomputeLine(bitboard.square(0, y), size, targetsOfY, screensOfY);
+    }
+
+    /**
+     * Recompute the targets and screens of one line
+     *
+     * @param first  the first square of the line
+     * @param stride difference between the square indices of neighbouring squares of the line
+     */
+    private void recomputeLine(int first, int stride, long[][] targets, long[][] screens) {
+        for (int player = 0; player < Bitboard.NUM_PLAYERS; player++) {
+            for (int i = 0, square = first; i < size; i++, square += stride) {
+                targets[player][square >>> 6] &= ~(1L << square);
+                screens[player][square >>> 6] &= ~(1L << square);
+            }
+        }
+        // the two pieces before the current square, and the squares since the last piece
+        var previous = -1;
+        var beforePrevious = -1;
+        for (int i = 0, square = first; i < size; i++, square += stride) {
+            if (!bitboard.isOccupied(square)) {
+                continue;
+            }
+            if (previous >= 0) {
+                // empty squares between two pieces have the same nearest pieces
+                for (int between = previous + stride; between < square; between += stride) {
+                    this.markScreen(between, previous, square, screens);
+                }
+            }
+            if (beforePrevious >= 0) {
+                // the previous piece has the nearest pieces beforePrevious and square
+                this.markScreen(previous, beforePrevious, square, screens);
+                this.markTarget(beforePrevious, square, targets);
+                this.markTarget(square, beforePrevious, targets);
+            }
+            beforePrevious = previous;
+            previous = square;
+        }
+    }
+
+    /**
+     * Mark a square as screen if one of the pieces on both sides is an archer and the other is its enemy
+     */
+    private void markScreen(int screen, int side, int otherSide, long[][] screens) {
+        for (int player = 0; player < Bitboard.NUM_PLAYERS; player++) {
+            var opponent = 1 - player;
+            if (bitboard.has(side, player, Bitboard.ARCHER) && bitboard.isOccupiedBy(otherSide, opponent)
+                    || bitboard.has(otherSide, player, Bitboard.ARCHER) && bitboard.isOccupiedBy(side, opponent)) {
+                screens[player][screen >>> 6] |= 1L << screen;
+            }
+        }
+    }
+
+    /**
+     * Mark the target square if an archer on the archer square can capture it
+     */
+    private void markTarget(int archer, int target, long[][] targets) {
+        for (int player = 0; player < Bitboard.NUM_PLAYERS; player++) {
+            if (bitboard.has(archer, player, Bitboard.ARCHER) && bitboard.isOccupiedBy(target, 1 - player)) {
+                targets[player][target >>> 6] |= 1L << target;
+            }
+        }
+    }
+
+    /**
+     * Copy the map for a copy of its bitboard
+     *
+     * @param bitboard the copied bitboard, with the same pieces
+     * @return the copied map
+     */
+    public ArcherAttackMap copyFor(@NotNull Bitboard bitboard) {
+        try {
+            var cloned = (ArcherAttackMap) super.clone();
+            cloned.bitboard = bitboard;
+            cloned.targetsOfX = deepCopy(this.targetsOfX);
+            cloned.targetsOfY = deepCopy(this.targetsOfY);
+            cloned.screensOfX = deepCopy(this.screensOfX);
+            cloned.screensOfY = deepCopy(this.screensOfY);
+            cloned.changedX = this.changedX.clone();
+            cloned.changedY = this.changedY.clone();
+            return cloned;
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long[][] deepCopy(long[][] sets) {
+        var copy = sets.clone();
+        for (int i = 0; i < sets.length; i++) {
+            copy[i] = sets[i].clone();
+        }
+        return copy;
+    }
+}
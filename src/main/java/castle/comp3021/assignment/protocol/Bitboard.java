@@ -0,0 +1,304 @@
+package castle.comp3021.assignment.protocol;
+
+import castle.comp3021.assignment.piece.Knight;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Bitboard representation of the gameboard.
+ * <p>
+ * Every {@link Place} is mapped to a square index {@code x * size + y}, which is the same order as iterating
+ * {@code board[x][y]} with nested loops. For each player and each piece type, the occupied squares are stored as a
+ * bitset of {@code long} words. Since the board is at most 26x26 (676 squares), at most 11 words are needed per set.
+ * <p>
+ * Players are identified by their index in {@link Configuration#getPlayers()}.
+ * <p>
+ * The number of pieces of each player and type is kept up to date by {@link Bitboard#set(int, int, int)} and
+ * {@link Bitboard#clear(int, int, int)}, so that counting pieces (e.g. checking whether a player has lost all pieces)
+ * takes constant time.
+ */
+public class Bitboard implements Cloneable {
+    /**
+     * Piece type index of {@link Knight}
+     */
+    public static final int KNIGHT = 0;
+
+    /**
+     * Piece type index of {@link castle.comp3021.assignment.piece.Archer}
+     */
+    public static final int ARCHER = 1;
+
+    /**
+     * Number of piece types
+     */
+    public static final int NUM_TYPES = 2;
+
+    /**
+     * Number of players supported by the bitboard
+     */
+    public static final int NUM_PLAYERS = 2;
+
+    /**
+     * Size of the gameboard
+     */
+    private final int size;
+
+    /**
+     * Number of {@code long} words needed to hold one bit per square
+     */
+    private final int numWords;
+
+    /**
+     * Bitsets of pieces, indexed by {@code player * NUM_TYPES + type}
+     */
+    private long[][] pieces;
+
+    /**
+     * Bitsets of all pieces of a player, indexed by player
+     */
+    private long[][] playerOccupancy;
+
+    /**
+     * Bitset of all pieces on the board
+     */
+    private long[] occupancy;
+
+    /**
+     * Number of pieces, indexed by {@code player * NUM_TYPES + type}
+     */
+    private int[] pieceCounts;
+
+    /**
+     * Number of pieces of a player, indexed by player
+     */
+    private int[] playerCounts;
+
+    public Bitboard(int size) {
+        this.size = size;
+        this.numWords = (size * size + Long.SIZE - 1) / Long.SIZE;
+        this.pieces = new long[NUM_PLAYERS * NUM_TYPES][numWords];
+        this.playerOccupancy = new long[NUM_PLAYERS][numWords];
+        this.occupancy = new long[numWords];
+        this.pieceCounts = new int[NUM_PLAYERS * NUM_TYPES];
+        this.playerCounts = new int[NUM_PLAYERS];
+    }
+
+    /**
+     * Get the type index of a piece
+     *
+     * @param piece the piece
+     * @return {@link Bitboard#KNIGHT} or {@link Bitboard#ARCHER}
+     */
+    public static int typeOf(@NotNull Piece piece) {
+        return piece instanceof Knight ? KNIGHT : ARCHER;
+    }
+
+    /* Getters start */
+    public int getSize() {
+        return size;
+    }
+
+    public int getNumWords() {
+        return numWords;
+    }
+    /* Getters end */
+
+    /**
+     * Get the square index of a place
+     *
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return square index
+     */
+    public int square(int x, int y) {
+        return x * size + y;
+    }
+
+    /**
+     * Get x coordinate of a square index
+     *
+     * @param square square index
+     * @return x coordinate
+     */
+    public int x(int square) {
+        return square / size;
+    }
+
+    /**
+     * Get y coordinate of a square index
+     *
+     * @param square square index
+     * @return y coordinate
+     */
+    public int y(int square) {
+        return square % size;
+    }
+
+    /**
+     * Put a piece on an empty square. Nothing changes if the piece is already there.
+     *
+     * @param square square index
+     * @param player index of the player owning the piece
+     * @param type   type index of the piece
+     */
+    public void set(int square, int player, int type) {
+        var word = square >>> 6;
+        var bit = 1L << square;
+        var index = player * NUM_TYPES + type;
+        if ((pieces[index][word] & bit) != 0) {
+            return;
+        }
+        pieces[index][word] |= bit;
+        playerOccupancy[player][word] |= bit;
+        occupancy[word] |= bit;
+        pieceCounts[index]++;
+        playerCounts[player]++;
+    }
+
+    /**
+     * Remove a piece from a square. Nothing changes if the piece is not there.
+     *
+     * @param square square index
+     * @param player index of the player owning the piece
+     * @param type   type index of the piece
+     */
+    public void clear(int square, int player, int type) {
+        var word = square >>> 6;
+        var bit = 1L << square;
+        var index = player * NUM_TYPES + type;
+        if ((pieces[index][word] & bit) == 0) {
+            return;
+        }
+        pieces[index][word] &= ~bit;
+        playerOccupancy[player][word] &= ~bit;
+        occupancy[word] &= ~bit;
+        pieceCounts[index]--;
+        playerCounts[player]--;
+    }
+
+    /**
+     * Remove all pieces from the board
+     */
+    public void clearAll() {
+        for (var set : pieces) {
+            Arrays.fill(set, 0L);
+        }
+        for (var set : playerOccupancy) {
+            Arrays.fill(set, 0L);
+        }
+        Arrays.fill(occupancy, 0L);
+        Arrays.fill(pieceCounts, 0);
+        Arrays.fill(playerCounts, 0);
+    }
+
+    /**
+     * @param square square index
+     * @return whether there is a piece on the square
+     */
+    public boolean isOccupied(int square) {
+        return (occupancy[square >>> 6] & (1L << square)) != 0;
+    }
+
+    /**
+     * @param square square index
+     * @param player player index
+     * @return whether there is a piece of the player on the square
+     */
+    public boolean isOccupiedBy(int square, int player) {
+        return (playerOccupancy[player][square >>> 6] & (1L << square)) != 0;
+    }
+
+    /**
+     * @param square square index
+     * @param player player index
+     * @param type   type index
+     * @return whether there is a piece of the given player and type on the square
+     */
+    public boolean has(int square, int player, int type) {
+        return (pieces[player * NUM_TYPES + type][square >>> 6] & (1L << square)) != 0;
+    }
+
+    /**
+     * @param player player index
+     * @return whether the player has no piece on the board
+     */
+    public boolean isEmpty(int player) {
+        return playerCounts[player] == 0;
+    }
+
+    /**
+     * @param player player index
+     * @return number of pieces of the player on the board
+     */
+    public int count(int player) {
+        return playerCounts[player];
+    }
+
+    /**
+     * @param player player index
+     * @param type   type index
+     * @return number of pieces of the player with the given type on the board
+     */
+    public int count(int player, int type) {
+        return pieceCounts[player * NUM_TYPES + type];
+    }
+
+    /**
+     * Find the next square occupied by a player, starting from (and including) a given square.
+     * Iterating from square 0 visits the pieces in the same order as a nested loop over {@code board[x][y]}.
+     *
+     * @param player player index
+     * @param from   the square index to start from
+     * @return the next occupied square, or -1 if there is none
+     */
+    public int nextSquare(int player, int from) {
+        return nextSetBit(playerOccupancy[player], from);
+    }
+
+    /**
+     * Find the next square occupied by a piece of a player and type, starting from (and including) a given square.
+     *
+     * @param player player index
+     * @param type   type index
+     * @param from   the square index to start from
+     * @return the next occupied square, or -1 if there is none
+     */
+    public int nextSquare(int player, int type, int from) {
+        return nextSetBit(pieces[player * NUM_TYPES + type], from);
+    }
+
+    private int nextSetBit(long[] set, int from) {
+        var word = from >>> 6;
+        if (word >= numWords) {
+            return -1;
+        }
+        var bits = set[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == numWords) {
+                return -1;
+            }
+            bits = set[word];
+        }
+    }
+
+    @Override
+    public Bitboard clone() throws CloneNotSupportedException {
+        var cloned = (Bitboard) super.clone();
+        cloned.pieces = this.pieces.clone();
+        for (int i = 0; i < this.pieces.length; i++) {
+            cloned.pieces[i] = this.pieces[i].clone();
+        }
+        cloned.playerOccupancy = this.playerOccupancy.clone();
+        for (int i = 0; i < this.playerOccupancy.length; i++) {
+            cloned.playerOccupancy[i] = this.playerOccupancy[i].clone();
+        }
+        cloned.occupancy = this.occupancy.clone();
+        cloned.pieceCounts = this.pieceCounts.clone();
+        cloned.playerCounts = this.playerCounts.clone();
+        return cloned;
+    }
+}
@@ -48,6 +48,18 @@ public class Configuration implements Cloneable {
 
     protected int numMovesProtection;
 
+    /**
+     * Number of threads used by computer players that search in parallel.
+     * This is a setting of this program only and is not written by {@link Configuration#toString()}.
+     */
+    protected int numSearchThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Whether computer players that support it search during the turn of their opponent.
+     * This is a setting of this program only and is not written by {@link Configuration#toString()}.
+     */
+    protected boolean pondering = true;
+
     /**
      * Constructor of configuration
      *
@@ -87,7 +99,7 @@ public class Configuration implements Cloneable {
             }
         }
         // calculate the central place
-        this.centralPlace = new Place(size / 2, size / 2);
+        this.centralPlace = Place.of(size / 2, size / 2);
     }
 
     public Configuration(int size, Player[] players) {
@@ -130,7 +142,7 @@ public class Configuration implements Cloneable {
     }
 
     public void addInitialPiece(Piece piece, int x, int y) {
-        this.addInitialPiece(piece, new Place(x, y));
+        this.addInitialPiece(piece, Place.of(x, y));
     }
 
     public int getSize() {
@@ -153,6 +165,14 @@ public class Configuration implements Cloneable {
         return numMovesProtection;
     }
 
+    public int getNumSearchThreads() {
+        return numSearchThreads;
+    }
+
+    public boolean isPondering() {
+        return pondering;
+    }
+
     @Override
     public Configuration clone() throws CloneNotSupportedException {
         var cloned = (Configuration) super.clone();
@@ -178,6 +198,17 @@ public class Configuration implements Cloneable {
         this.numMovesProtection = numMovesProtection;
     }
 
+    public void setNumSearchThreads(int numSearchThreads) {
+        if (numSearchThreads < 1) {
+            throw new InvalidConfigurationError("number of search threads must be at least 1");
+        }
+        this.numSearchThreads = numSearchThreads;
+    }
+
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+    }
+
     /**
      * Check whether the first player is human player or not
      * @return boolean
@@ -24,6 +24,28 @@ public abstract class Game implements Cloneable {
      */
     protected Piece[][] board;
 
+    /**
+     * Bitboard representation of {@link Game#board}, kept in sync with it by {@link Game#setBoard(Piece[][])} and
+     * {@link Game#setPiece(int, int, Piece)}.
+     * Whole-board queries (e.g. finding all pieces of a player) should use this instead of scanning the board.
+     */
+    protected Bitboard bitboard;
+
+    /**
+     * Squares that the archers of each player can capture on or through, kept in sync with {@link Game#bitboard}
+     */
+    protected ArcherAttackMap archerAttacks;
+
+    /**
+     * Zobrist keys of the board size
+     */
+    protected Zobrist zobrist;
+
+    /**
+     * XOR of the Zobrist keys of all pieces on the board, updated with every change of the board
+     */
+    protected long pieceKey;
+
     /**
      * Current player who is supposed to make a move.
      */
@@ -34,9 +56,57 @@ public abstract class Game implements Cloneable {
      */
     protected int numMoves = 0;
 
+    /**
+     * Initial capacity of the undo stack of {@link Game#makeMove(int)}, which is deeper than any practical search
+     */
+    private static final int UNDO_STACK_CAPACITY = 256;
+
+    /**
+     * Undo stack of {@link Game#makeMove(int)}: the moves made
+     */
+    private int[] undoMoves = new int[UNDO_STACK_CAPACITY];
+
+    /**
+     * Undo stack of {@link Game#makeMove(int)}: the pieces captured by the moves, or null
+     */
+    private Piece[] undoCaptured = new Piece[UNDO_STACK_CAPACITY];
+
+    /**
+     * Undo stack of {@link Game#makeMove(int)}: the score gained by the moving player
+     */
+    private int[] undoScoreDeltas = new int[UNDO_STACK_CAPACITY];
+
+    /**
+     * Undo stack of {@link Game#makeMove(int)}: the change of {@link Game#numMoves}
+     */
+    private int[] undoNumMovesDeltas = new int[UNDO_STACK_CAPACITY];
+
+    /**
+     * Number of moves on the undo stack
+     */
+    private int undoSize = 0;
+
+    /**
+     * Incremented whenever a piece is put on or removed from the board, for invalidating {@link Game#legalMoves}
+     */
+    private long boardVersion = 0;
+
+    /**
+     * Cached result of {@link Game#getLegalMoves(Player)}, valid while the board, the number of moves and the player
+     * stay the same
+     */
+    @Nullable
+    private LegalMoves legalMoves;
+
+    private long legalMovesBoardVersion;
+
+    private int legalMovesNumMoves;
+
+    private int legalMovesPlayer;
+
     public Game(Configuration configuration) {
         this.configuration = configuration;
-        this.board = configuration.getInitialBoard();
+        this.setBoard(configuration.getInitialBoard());
     }
 
     public Game() {
@@ -52,6 +122,75 @@ public abstract class Game implements Cloneable {
      */
     public abstract Player start();
 
+    /**
+     * Make a move by the current player, which can be taken back with {@link Game#unmakeMove()}.
+     * <p>
+     * Compared with {@link Game#movePiece(Move)}, this also updates the number of moves and the score of the moving
+     * player (the same way as {@link Game#updateScore(Player, Piece, Move)}, but without any output), and does not
+     * record the move. It is intended for searching many positions on one game object.
+     *
+     * @param move the move to make, encoded by {@link PackedMove}
+     */
+    public void makeMove(int move) {
+        if (this.undoSize == this.undoMoves.length) {
+            var capacity = this.undoMoves.length * 2;
+            this.undoMoves = Arrays.copyOf(this.undoMoves, capacity);
+            this.undoCaptured = Arrays.copyOf(this.undoCaptured, capacity);
+            this.undoScoreDeltas = Arrays.copyOf(this.undoScoreDeltas, capacity);
+            this.undoNumMovesDeltas = Arrays.copyOf(this.undoNumMovesDeltas, capacity);
+        }
+        var source = PackedMove.source(move);
+        var destination = PackedMove.destination(move);
+        var sourceX = this.bitboard.x(source);
+        var sourceY = this.bitboard.y(source);
+        var destinationX = this.bitboard.x(destination);
+        var destinationY = this.bitboard.y(destination);
+        var piece = this.board[sourceX][sourceY];
+        assert piece != null;
+
+        var player = this.getCurrentPlayer();
+        var scoreDelta = Math.abs(destinationX - sourceX) + Math.abs(destinationY - sourceY);
+        this.undoMoves[this.undoSize] = move;
+        this.undoCaptured[this.undoSize] = this.board[destinationX][destinationY];
+        this.undoScoreDeltas[this.undoSize] = scoreDelta;
+        this.undoNumMovesDeltas[this.undoSize] = 1;
+        this.undoSize++;
+
+        this.setPiece(destinationX, destinationY, piece);
+        this.setPiece(sourceX, sourceY, null);
+        player.setScore(player.getScore() + scoreDelta);
+        this.numMoves++;
+    }
+
+    /**
+     * Take back the last move made by {@link Game#makeMove(int)}.
+     */
+    public void unmakeMove() {
+        assert this.undoSize > 0 : "no move to unmake";
+        this.undoSize--;
+        var move = this.undoMoves[this.undoSize];
+        var captured = this.undoCaptured[this.undoSize];
+        this.undoCaptured[this.undoSize] = null;
+
+        this.numMoves -= this.undoNumMovesDeltas[this.undoSize];
+        var player = this.getCurrentPlayer();
+        player.setScore(player.getScore() - this.undoScoreDeltas[this.undoSize]);
+
+        var source = PackedMove.source(move);
+        var destination = PackedMove.destination(move);
+        var destinationX = this.bitboard.x(destination);
+        var destinationY = this.bitboard.y(destination);
+        this.setPiece(this.bitboard.x(source), this.bitboard.y(source), this.board[destinationX][destinationY]);
+        this.setPiece(destinationX, destinationY, captured);
+    }
+
+    /**
+     * @return the number of moves made by {@link Game#makeMove(int)} that can be taken back
+     */
+    public int getUndoSize() {
+        return this.undoSize;
+    }
+
     /**
      * Get the winner of the game. If there is no winner yet, return null;
      *
@@ -62,6 +201,15 @@ public abstract class Game implements Cloneable {
      */
     public abstract Player getWinner(Player lastPlayer, Piece lastPiece, Move lastMove);
 
+    /**
+     * Get the winner of the game right after a move made by {@link Game#makeMove(int)}, with the same rules as
+     * {@link Game#getWinner(Player, Piece, Move)}.
+     *
+     * @param lastMove the last move, encoded by {@link PackedMove}
+     * @return index of the winner in {@link Configuration#getPlayers()}, or -1 if there is no winner yet
+     */
+    public abstract int getWinnerIndex(int lastMove);
+
     /**
      * Update the score of a player according to the piece and corresponding move made by him just now.
      *
@@ -86,6 +234,38 @@ public abstract class Game implements Cloneable {
      */
     public abstract @NotNull Move[] getAvailableMoves(Player player);
 
+    /**
+     * Get all available moves of one player without allocating.
+     *
+     * @param player the player whose available moves to get
+     * @param moves  the list to fill with moves encoded by {@link PackedMove}; it is cleared first
+     */
+    public abstract void getAvailableMoves(Player player, @NotNull IntMoveList moves);
+
+    /**
+     * Get the available moves of one player in the current position.
+     * The result is computed once and reused until a piece is moved or the number of moves changes.
+     *
+     * @param player the player whose available moves to get
+     * @return the available moves
+     */
+    public @NotNull LegalMoves getLegalMoves(Player player) {
+        var playerIndex = this.getPlayerIndex(player);
+        var cached = this.legalMoves;
+        if (cached != null && this.legalMovesBoardVersion == this.boardVersion
+                && this.legalMovesNumMoves == this.numMoves && this.legalMovesPlayer == playerIndex) {
+            return cached;
+        }
+        var moves = new IntMoveList();
+        this.getAvailableMoves(player, moves);
+        cached = new LegalMoves(this.configuration.getSize(), moves, this.toMoves(moves));
+        this.legalMoves = cached;
+        this.legalMovesBoardVersion = this.boardVersion;
+        this.legalMovesNumMoves = this.numMoves;
+        this.legalMovesPlayer = playerIndex;
+        return cached;
+    }
+
     /**
      * Refresh the output printed in the console, which shows the following things.
      * 1. the gameboard and pieces on it
@@ -100,7 +280,7 @@ public abstract class Game implements Cloneable {
             for (int col = 0; col < size; col++) {
                 var piece = this.getPiece(col, row);
                 if (piece == null) {
-                    if (this.getCentralPlace().equals(new Place(col, row))) {
+                    if (this.getCentralPlace().equals(Place.of(col, row))) {
                         rowContent.add("x");
                     } else {
                         rowContent.add(".");
@@ -181,7 +361,7 @@ public abstract class Game implements Cloneable {
             for (int col = 0; col < size; col++) {
                 var piece = this.getPiece(col, row);
                 if (piece == null) {
-                    if (this.getCentralPlace().equals(new Place(col, row))) {
+                    if (this.getCentralPlace().equals(Place.of(col, row))) {
                         rowContent.add("x");
                     } else {
                         rowContent.add(".");
@@ -242,7 +422,145 @@ public abstract class Game implements Cloneable {
     }
 
     public @Nullable Piece getPiece(int x, int y) {
-        return this.getPiece(new Place(x, y));
+        return this.board[x][y];
+    }
+
+    /**
+     * Replace the gameboard and rebuild {@link Game#bitboard} from it.
+     *
+     * @param board the new gameboard
+     */
+    protected void setBoard(Piece[][] board) {
+        this.board = board;
+        this.boardVersion++;
+        if (board == null) {
+            this.bitboard = null;
+            this.archerAttacks = null;
+            this.zobrist = null;
+            return;
+        }
+        this.bitboard = new Bitboard(board.length);
+        this.zobrist = Zobrist.forSize(board.length);
+        this.pieceKey = 0L;
+        for (int x = 0; x < board.length; x++) {
+            for (int y = 0; y < board.length; y++) {
+                var piece = board[x][y];
+                if (piece != null) {
+                    var square = this.bitboard.square(x, y);
+                    var player = this.getPlayerIndex(piece.getPlayer());
+                    var type = Bitboard.typeOf(piece);
+                    this.bitboard.set(square, player, type);
+                    this.pieceKey ^= this.zobrist.piece(square, player, type);
+                }
+            }
+        }
+        this.archerAttacks = new ArcherAttackMap(this.bitboard);
+    }
+
+    /**
+     * Put a piece in the place (x,y), replacing the piece which is already there.
+     * Both {@link Game#board} and {@link Game#bitboard} (including its piece counts) are updated, and the lines of
+     * {@link Game#archerAttacks} through the place are marked as changed.
+     *
+     * @param x     x coordinate
+     * @param y     y coordinate
+     * @param piece the piece to put, or null to empty the place
+     */
+    protected void setPiece(int x, int y, @Nullable Piece piece) {
+        this.boardVersion++;
+        var square = this.bitboard.square(x, y);
+        var previous = this.board[x][y];
+        if (previous != null) {
+            var player = this.getPlayerIndex(previous.getPlayer());
+            var type = Bitboard.typeOf(previous);
+            this.bitboard.clear(square, player, type);
+            this.pieceKey ^= this.zobrist.piece(square, player, type);
+        }
+        if (piece != null) {
+            var player = this.getPlayerIndex(piece.getPlayer());
+            var type = Bitboard.typeOf(piece);
+            this.bitboard.set(square, player, type);
+            this.pieceKey ^= this.zobrist.piece(square, player, type);
+        }
+        this.board[x][y] = piece;
+        this.archerAttacks.markChanged(square);
+    }
+
+    /**
+     * Get the index of a player in {@link Configuration#getPlayers()}, which is how players are identified in
+     * {@link Game#getBitboard()}.
+     *
+     * @param player the player
+     * @return 0 for the first player, 1 otherwise
+     */
+    public int getPlayerIndex(Player player) {
+        return this.configuration.getPlayers()[0].equals(player) ? 0 : 1;
+    }
+
+    /**
+     * Convert a packed move to a {@link Move}
+     *
+     * @param move move encoded by {@link PackedMove}
+     * @return the move
+     */
+    public @NotNull Move toMove(int move) {
+        var source = PackedMove.source(move);
+        var destination = PackedMove.destination(move);
+        return new Move(this.bitboard.x(source), this.bitboard.y(source),
+                this.bitboard.x(destination), this.bitboard.y(destination));
+    }
+
+    /**
+     * Convert packed moves to an array of {@link Move}
+     *
+     * @param moves moves encoded by {@link PackedMove}
+     * @return an array of moves
+     */
+    public @NotNull Move[] toMoves(@NotNull IntMoveList moves) {
+        var result = new Move[moves.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = this.toMove(moves.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Encode a move in the current position. The capture flags are set according to the piece at the destination.
+     * The move must be inside the gameboard.
+     *
+     * @param move the move
+     * @return the packed move
+     */
+    public int toPackedMove(@NotNull Move move) {
+        var source = this.bitboard.square(move.getSource().x(), move.getSource().y());
+        var destination = this.bitboard.square(move.getDestination().x(), move.getDestination().y());
+        var captured = this.getPiece(move.getDestination());
+        if (captured == null) {
+            return PackedMove.of(source, destination);
+        }
+        return PackedMove.capture(source, destination, Bitboard.typeOf(captured));
+    }
+
+    /**
+     * Get the 64-bit Zobrist key of the current position, which identifies the pieces on the board, the player to
+     * move and the number of moves left before capturing is allowed. Equal positions always have equal keys.
+     *
+     * @return the position key
+     */
+    public long getPositionKey() {
+        var key = this.pieceKey;
+        if (this.getCurrentPlayerID() != 0) {
+            key ^= this.zobrist.sideToMove();
+        }
+        return key ^ this.zobrist.protection(this.configuration.getNumMovesProtection() - this.numMoves);
+    }
+
+    public Bitboard getBitboard() {
+        return bitboard;
+    }
+
+    public ArcherAttackMap getArcherAttacks() {
+        return archerAttacks;
     }
 
     public Player getCurrentPlayer() {
@@ -277,6 +595,12 @@ public abstract class Game implements Cloneable {
             if (this.configuration.getSize() >= 0)
                 System.arraycopy(this.board[i], 0, cloned.board[i], 0, this.configuration.getSize());
         }
+        cloned.bitboard = this.bitboard == null ? null : this.bitboard.clone();
+        cloned.archerAttacks = this.archerAttacks == null ? null : this.archerAttacks.copyFor(cloned.bitboard);
+        cloned.undoMoves = this.undoMoves.clone();
+        cloned.undoCaptured = this.undoCaptured.clone();
+        cloned.undoScoreDeltas = this.undoScoreDeltas.clone();
+        cloned.undoNumMovesDeltas = this.undoNumMovesDeltas.clone();
         cloned.currentPlayer = currentPlayer == null ? null : currentPlayer.clone();
         return cloned;
     }
@@ -0,0 +1,101 @@
+package castle.comp3021.assignment.protocol;
+
+import java.util.Arrays;
+
+/**
+ * A reusable buffer of moves encoded by {@link PackedMove}.
+ * Clearing the list keeps its storage, so a list can be filled again and again without allocation.
+ */
+public class IntMoveList {
+    /**
+     * Default capacity, which is enough for most positions
+     */
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+
+    private int size;
+
+    public IntMoveList(int capacity) {
+        this.moves = new int[Math.max(1, capacity)];
+    }
+
+    public IntMoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Append a move
+     *
+     * @param move packed move
+     */
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+        moves[size++] = move;
+    }
+
+    /**
+     * @param index index of the move
+     * @return the packed move at the index
+     */
+    public int get(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Replace the move at an index
+     *
+     * @param index index of the move
+     * @param move  packed move
+     */
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    /**
+     * Swap two moves, which is useful for move ordering
+     *
+     * @param i index of a move
+     * @param j index of another move
+     */
+    public void swap(int i, int j) {
+        var tmp = moves[i];
+        moves[i] = moves[j];
+        moves[j] = tmp;
+    }
+
+    /**
+     * @param move packed move
+     * @return index of the move with the same source and destination, or -1 if not found
+     */
+    public int indexOf(int move) {
+        var squares = PackedMove.squares(move);
+        for (int i = 0; i < size; i++) {
+            if (PackedMove.squares(moves[i]) == squares) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove all moves, keeping the storage
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(moves, size);
+    }
+}
@@ -0,0 +1,141 @@
+package castle.comp3021.assignment.protocol;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The available moves of one player in one position, see {@link Game#getLegalMoves(Player)}.
+ * <p>
+ * For each source square with a movable piece, the reachable destination squares are stored as a bitset of
+ * {@code long} words (with the square indices of {@link Bitboard}), so that checking whether a move is available
+ * takes constant time. Instances
+ * are never changed after construction and can be shared between copies of a game.
+ */
+public final class LegalMoves {
+    private final int size;
+
+    /**
+     * Available moves encoded by {@link PackedMove}, in the order of {@link Game#getAvailableMoves(Player)}
+     */
+    private final int[] packedMoves;
+
+    /**
+     * The same moves as {@link LegalMoves#packedMoves}
+     */
+    private final Move[] moves;
+
+    /**
+     * Destination bitsets indexed by source square, or null for squares without available moves
+     */
+    private final long[][] destinations;
+
+    private final int numWords;
+
+    /**
+     * @param size        size of the gameboard
+     * @param packedMoves available moves encoded by {@link PackedMove}
+     * @param moves       the same moves
+     */
+    LegalMoves(int size, @NotNull IntMoveList packedMoves, @NotNull Move[] moves) {
+        this.size = size;
+        this.packedMoves = packedMoves.toArray();
+        this.moves = moves;
+        this.numWords = (size * size + Long.SIZE - 1) / Long.SIZE;
+        this.destinations = new long[size * size][];
+        for (var move : this.packedMoves) {
+            var source = PackedMove.source(move);
+            var destination = PackedMove.destination(move);
+            if (this.destinations[source] == null) {
+                this.destinations[source] = new long[numWords];
+            }
+            this.destinations[source][destination >>> 6] |= 1L << destination;
+        }
+    }
+
+    /**
+     * @param source      source square
+     * @param destination destination square
+     * @return whether the move is available
+     */
+    public boolean isLegal(int source, int destination) {
+        var set = destinations[source];
+        return set != null && (set[destination >>> 6] & (1L << destination)) != 0;
+    }
+
+    /**
+     * @param move the move
+     * @return whether the move is available; moves with places outside the gameboard are not
+     */
+    public boolean isLegal(@NotNull Move move) {
+        var source = move.getSource();
+        var destination = move.getDestination();
+        if (source.x() < 0 || source.x() >= size || source.y() < 0 || source.y() >= size
+                || destination.x() < 0 || destination.x() >= size || destination.y() < 0 || destination.y() >= size) {
+            return false;
+        }
+        return this.isLegal(source.x() * size + source.y(), destination.x() * size + destination.y());
+    }
+
+    /**
+     * Find the next square that the piece on a source square can move to, starting from (and including) a given
+     * square
+     *
+     * @param source source square
+     * @param from   the square index to start from
+     * @return the next reachable square, or -1 if there is none
+     */
+    public int nextDestination(int source, int from) {
+        var set = destinations[source];
+        var word = from >>> 6;
+        if (set == null || word >= numWords) {
+            return -1;
+        }
+        var bits = set[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == numWords) {
+                return -1;
+            }
+            bits = set[word];
+        }
+    }
+
+    /**
+     * @param source source square
+     * @return number of squares that the piece on the source square can move to
+     */
+    public int count(int source) {
+        var set = destinations[source];
+        if (set == null) {
+            return 0;
+        }
+        var count = 0;
+        for (var word : set) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @return number of available moves
+     */
+    public int size() {
+        return packedMoves.length;
+    }
+
+    /**
+     * @param index index of the move
+     * @return the move encoded by {@link PackedMove}
+     */
+    public int get(int index) {
+        return packedMoves[index];
+    }
+
+    /**
+     * @return a new array of the available moves
+     */
+    public @NotNull Move[] toMoves() {
+        return moves.clone();
+    }
+}
@@ -25,11 +25,11 @@ public class Move implements Cloneable {
     }
 
     public Move(int sourceX, int sourceY, int destinationX, int destinationY) {
-        this(new Place(sourceX, sourceY), new Place(destinationX, destinationY));
+        this(Place.of(sourceX, sourceY), Place.of(destinationX, destinationY));
     }
 
     public Move(Place source, int destinationX, int destinationY) {
-        this(source, new Place(destinationX, destinationY));
+        this(source, Place.of(destinationX, destinationY));
     }
 
     /* Getters start */
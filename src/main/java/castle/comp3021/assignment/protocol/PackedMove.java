@@ -0,0 +1,100 @@
+package castle.comp3021.assignment.protocol;
+
+/**
+ * Primitive encoding of a {@link Move} into an {@code int}, so that move generation and search do not allocate.
+ * <p>
+ * Layout of the bits (squares are indexed as in {@link Bitboard}):
+ * <ul>
+ *     <li>bits 0-9: source square</li>
+ *     <li>bits 10-19: destination square</li>
+ *     <li>bit 20: set if the move captures a piece</li>
+ *     <li>bit 21: type of the captured piece ({@link Bitboard#KNIGHT} or {@link Bitboard#ARCHER})</li>
+ * </ul>
+ * Since a move never has the same source and destination, {@link PackedMove#NONE} (0) never encodes a valid move.
+ */
+public final class PackedMove {
+    /**
+     * Value representing no move
+     */
+    public static final int NONE = 0;
+
+    private static final int SQUARE_BITS = 10;
+
+    private static final int SQUARE_MASK = (1 << SQUARE_BITS) - 1;
+
+    private static final int CAPTURE_FLAG = 1 << (2 * SQUARE_BITS);
+
+    private static final int CAPTURED_TYPE_SHIFT = 2 * SQUARE_BITS + 1;
+
+    private PackedMove() {
+    }
+
+    /**
+     * Encode a move without capture
+     *
+     * @param source      source square
+     * @param destination destination square
+     * @return the packed move
+     */
+    public static int of(int source, int destination) {
+        return source | (destination << SQUARE_BITS);
+    }
+
+    /**
+     * Encode a move capturing a piece
+     *
+     * @param source       source square
+     * @param destination  destination square
+     * @param capturedType type index of the captured piece
+     * @return the packed move
+     */
+    public static int capture(int source, int destination, int capturedType) {
+        return of(source, destination) | CAPTURE_FLAG | (capturedType << CAPTURED_TYPE_SHIFT);
+    }
+
+    /* Getters start */
+    public static int source(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int destination(int move) {
+        return (move >>> SQUARE_BITS) & SQUARE_MASK;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE_FLAG) != 0;
+    }
+
+    /**
+     * @param move the packed move
+     * @return type index of the captured piece, only meaningful if {@link PackedMove#isCapture(int)}
+     */
+    public static int capturedType(int move) {
+        return (move >>> CAPTURED_TYPE_SHIFT) & 1;
+    }
+    /* Getters end */
+
+    /**
+     * Strip the capture flags of a move, leaving only the source and destination squares
+     *
+     * @param move the packed move
+     * @return the packed move without flags
+     */
+    public static int squares(int move) {
+        return move & ((1 << (2 * SQUARE_BITS)) - 1);
+    }
+
+    /**
+     * Convert a packed move to string for debugging
+     *
+     * @param move the packed move
+     * @param size size of the gameboard
+     * @return string in the same format as {@link Place#toString()}
+     */
+    public static String toString(int move, int size) {
+        var source = source(move);
+        var destination = destination(move);
+        return String.format("(%d,%d)->(%d,%d)%s", source / size, source % size,
+                destination / size, destination % size, isCapture(move) ? "x" : "");
+    }
+}
@@ -37,5 +37,15 @@ public abstract class Piece {
      */
     public abstract Move[] getAvailableMoves(Game game, Place source);
 
+    /**
+     * Append all moves that are valid to make from the current place of the piece to a move list, without
+     * allocating.
+     *
+     * @param game   the game object
+     * @param source the square index of the current place of the piece, see {@link Bitboard}
+     * @param moves  the list to append moves encoded by {@link PackedMove} to
+     */
+    public abstract void generateMoves(Game game, int source, IntMoveList moves);
+
     public abstract Renderer.@NotNull CellImage getImageRep();
 }
@@ -1,14 +1,34 @@
 package castle.comp3021.assignment.protocol;
 
-import java.util.Objects;
-
 /**
  * A square (position, place) in the gameboard.
  * Represented by coordinates a 2-D coordinate system.
  * <p>
  * x and y coordinates of a place on gameboard are two fields of this class.
+ * <p>
+ * Places inside the largest gameboard are interned: {@link Place#of(int, int)} always returns the same instance for
+ * the same coordinates, so that the engine does not allocate places on hot paths.
  */
 public class Place implements Cloneable {
+    /**
+     * Largest size of gameboard, see {@link Configuration}
+     */
+    private static final int MAX_SIZE = 26;
+
+    /**
+     * Canonical instances of all places inside the largest gameboard, indexed by {@code [x][y]}.
+     * Every smaller gameboard uses a corner of this table.
+     */
+    private static final Place[][] PLACES = new Place[MAX_SIZE][MAX_SIZE];
+
+    static {
+        for (int x = 0; x < MAX_SIZE; x++) {
+            for (int y = 0; y < MAX_SIZE; y++) {
+                PLACES[x][y] = new Place(x, y);
+            }
+        }
+    }
+
     /**
      * x coordinate
      */
@@ -19,9 +39,30 @@ public class Place implements Cloneable {
      */
     private final int y;
 
+    /**
+     * Cached hash code, which has the same value as {@code Objects.hash(x, y)}
+     */
+    private final int hash;
+
     public Place(int x, int y) {
         this.x = x;
         this.y = y;
+        this.hash = 31 * (31 + x) + y;
+    }
+
+    /**
+     * Get the place at (x,y). Places inside the gameboard are shared instances; places outside (e.g. parsed from an
+     * invalid user input) are newly created.
+     *
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return the place
+     */
+    public static Place of(int x, int y) {
+        if (x >= 0 && x < MAX_SIZE && y >= 0 && y < MAX_SIZE) {
+            return PLACES[x][y];
+        }
+        return new Place(x, y);
     }
 
 
@@ -48,12 +89,17 @@ public class Place implements Cloneable {
 
     @Override
     public int hashCode() {
-        return Objects.hash(x, y);
+        return hash;
     }
 
+    /**
+     * Places are immutable, so the place itself is returned. This keeps interned places canonical.
+     *
+     * @return this place
+     */
     @Override
     public Place clone() throws CloneNotSupportedException {
-        return (Place) super.clone();
+        return this;
     }
 
     @Override
@@ -1,6 +1,6 @@
 package castle.comp3021.assignment.protocol;
 
-import castle.comp3021.assignment.piece.*;
+import castle.comp3021.assignment.piece.RuleSet;
 import org.jetbrains.annotations.NotNull;
 import java.util.Objects;
 
@@ -78,6 +78,10 @@ public abstract class Player implements Cloneable {
      * Choose a move from available moves.
      * This method will be called by {@link Game} object to get the move that the player wants to make when it is the
      * player's turn.
+     * <p>
+     * Computing a move may be cancelled by interrupting the calling thread, also before this method is entered. A
+     * player that takes long to choose a move should then return any available move as soon as possible, and leave
+     * the interrupt status set.
      *
      * @param game           the current game object
      * @param availableMoves available moves for this player to choose from.
@@ -85,24 +89,22 @@ public abstract class Player implements Cloneable {
      */
     public abstract @NotNull Move nextMove(Game game, Move[] availableMoves);
 
+    /**
+     * Called when a game in which this player takes part has ended, so that the player can stop any work for the game
+     * that runs in the background. Players without such work need not override this method.
+     */
+    public void onGameEnd() {
+    }
+
+    /**
+     * Validate a move against all rules of the game.
+     *
+     * @param game the current game object
+     * @param move the move to be validated
+     * @return the description of the violated rule, or null if the move is valid
+     */
     public String validateMove(Game game, Move move) {
-        var rules = new Rule[]{
-                new OutOfBoundaryRule(),
-                new OccupiedRule(),
-                new VacantRule(),
-                new NilMoveRule(),
-                new FirstNMovesProtectionRule(game.getConfiguration().getNumMovesProtection()),
-                new ArcherMoveRule(),
-                new KnightMoveRule(),
-                new KnightBlockRule(),
-        };
-        for (var rule :
-                rules) {
-            if (!rule.validate(game, move)) {
-                return rule.getDescription();
-            }
-        }
-        return null;
+        return RuleSet.of(game.getConfiguration()).validate(game, move);
     }
 
     @Override
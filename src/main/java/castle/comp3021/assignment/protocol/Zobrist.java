@@ -0,0 +1,96 @@
+package castle.comp3021.assignment.protocol;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys for hashing game positions of one board size.
+ * <p>
+ * The key of a position is the XOR of the keys of all (square, player, piece type) on the board, the side-to-move
+ * key if the second player is to move, and the protection key of the number of moves left before capturing is allowed
+ * (see {@link Configuration#getNumMovesProtection()}). Positions with the same pieces that are a different number of
+ * moves away from the end of the protection have different keys, since captures and wins become possible at different
+ * plies in their subtrees.
+ * <p>
+ * Keys are generated from a fixed seed, so the key of a position is the same in every run of the program and can be
+ * stored in files.
+ */
+public final class Zobrist {
+    /**
+     * Largest size of gameboard
+     */
+    private static final int MAX_SIZE = 26;
+
+    private static final long SEED = 0x3021_4A65_736F_6E4DL;
+
+    private static final Zobrist[] TABLES = new Zobrist[MAX_SIZE + 1];
+
+    static {
+        for (int size = 1; size <= MAX_SIZE; size++) {
+            TABLES[size] = new Zobrist(size);
+        }
+    }
+
+    /**
+     * Keys indexed by {@code (square * NUM_PLAYERS + player) * NUM_TYPES + type}
+     */
+    private final long[] pieceKeys;
+
+    private final long sideToMoveKey;
+
+    private final long protectionKey;
+
+    private Zobrist(int size) {
+        var random = new SplittableRandom(SEED + size);
+        this.pieceKeys = new long[size * size * Bitboard.NUM_PLAYERS * Bitboard.NUM_TYPES];
+        for (int i = 0; i < pieceKeys.length; i++) {
+            pieceKeys[i] = random.nextLong();
+        }
+        this.sideToMoveKey = random.nextLong();
+        this.protectionKey = random.nextLong();
+    }
+
+    /**
+     * Get the keys of a board size
+     *
+     * @param size size of the gameboard
+     * @return the Zobrist keys
+     */
+    public static Zobrist forSize(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("no Zobrist keys for board size " + size);
+        }
+        return TABLES[size];
+    }
+
+    /**
+     * @param square square index, see {@link Bitboard}
+     * @param player player index
+     * @param type   piece type index
+     * @return key of the piece on the square
+     */
+    public long piece(int square, int player, int type) {
+        return pieceKeys[(square * Bitboard.NUM_PLAYERS + player) * Bitboard.NUM_TYPES + type];
+    }
+
+    /**
+     * @return key XORed in when the second player is to move
+     */
+    public long sideToMove() {
+        return sideToMoveKey;
+    }
+
+    /**
+     * @param movesLeft number of moves left before capturing is allowed
+     * @return key XORed in for the number of moves left, which is 0 if capturing is allowed
+     */
+    public long protection(int movesLeft) {
+        if (movesLeft <= 0) {
+            return 0L;
+        }
+        // SplitMix64 finalizer, so that no key has to be stored for each of the unbounded number of moves left
+        var z = protectionKey + movesLeft * 0x9E37_79B9_7F4A_7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58_476D_1CE4_E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D0_49BB_1331_11EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,346 @@
+package castle.comp3021.assignment.protocol.io;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the lines of a text file through a fixed-size byte buffer, skipping blank lines and comment lines (starting
+ * with '#'), and tokenizes the current line in place.
+ * <p>
+ * Lines are not decoded into strings unless {@link ByteLineReader#getLine()} or {@link ByteLineReader#decode(int, int)}
+ * is called, so a file of any length is read with a constant amount of memory and without allocating per line. The
+ * tokenizing methods work on the current line from a cursor, which starts at the beginning of the line.
+ * <p>
+ * Lines end as for {@link java.io.BufferedReader#readLine()}, and lines are blank as for {@link String#isBlank()}.
+ * The tokenizing methods only skip ASCII whitespace, which are the ASCII characters of
+ * {@link Character#isWhitespace(char)}; callers handle lines with other characters ({@link ByteLineReader#isAscii()})
+ * on the decoded line. The charset of the file must encode ASCII characters as single bytes, as UTF-8 does.
+ */
+final class ByteLineReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    @NotNull
+    private final FileChannel channel;
+
+    @NotNull
+    private final Charset charset;
+
+    /**
+     * Bytes read from the file; grown only if a line does not fit
+     */
+    private byte[] bytes = new byte[BUFFER_SIZE];
+
+    /**
+     * Number of valid bytes in {@link ByteLineReader#bytes}
+     */
+    private int limit;
+
+    /**
+     * Start of the line after the current line
+     */
+    private int next;
+
+    private boolean endOfFile;
+
+    /**
+     * Start and end (exclusive, without the line terminator) of the current line
+     */
+    private int lineStart;
+
+    private int lineEnd;
+
+    /**
+     * Cursor within the current line
+     */
+    private int position;
+
+    /**
+     * @param path    path of the file
+     * @param charset charset of the file, used for decoding only
+     * @throws IOException if the file cannot be opened
+     */
+    ByteLineReader(@NotNull Path path, @NotNull Charset charset) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.charset = charset;
+    }
+
+    /**
+     * Move to the next line that is not blank and not a comment
+     *
+     * @return whether there is such a line
+     * @throws IOException if the file cannot be read
+     */
+    boolean nextLine() throws IOException {
+        while (this.readLine()) {
+            if (lineEnd > lineStart && bytes[lineStart] == '#') {
+                continue;
+            }
+            this.position = lineStart;
+            this.skipWhitespace();
+            if (position < lineEnd && (this.isAscii() || !this.getLine().isBlank())) {
+                this.position = lineStart;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Move to the next line, which ends at '\n', '\r' or "\r\n", reading more of the file if the line is not
+     * complete in the buffer
+     */
+    private boolean readLine() throws IOException {
+        var end = next;
+        while (true) {
+            while (end < limit && bytes[end] != '\n' && bytes[end] != '\r') {
+                end++;
+            }
+            // a '\r' at the end of the buffer may be followed by a '\n' that is not read yet
+            if (end < limit - 1 || end < limit && bytes[end] == '\n' || endOfFile) {
+                break;
+            }
+            // keep the incomplete line at the start of the buffer and fill the rest
+            var consumed = next;
+            System.arraycopy(bytes, consumed, bytes, 0, limit - consumed);
+            limit -= consumed;
+            end -= consumed;
+            next = 0;
+            if (limit == bytes.length) {
+                var grown = new byte[bytes.length * 2];
+                System.arraycopy(bytes, 0, grown, 0, limit);
+                bytes = grown;
+            }
+            var read = channel.read(ByteBuffer.wrap(bytes, limit, bytes.length - limit));
+            if (read < 0) {
+                endOfFile = true;
+            } else {
+                limit += read;
+            }
+        }
+        if (next == limit) {
+            return false;
+        }
+        this.lineStart = next;
+        this.lineEnd = end;
+        if (end == limit) {
+            this.next = end;
+        } else if (bytes[end] == '\r' && end + 1 < limit && bytes[end + 1] == '\n') {
+            this.next = end + 2;
+        } else {
+            this.next = end + 1;
+        }
+        return true;
+    }
+
+    /**
+     * @return the current line as a string
+     */
+    String getLine() {
+        return new String(bytes, lineStart, lineEnd - lineStart, charset);
+    }
+
+    /**
+     * @param pattern bytes to find
+     * @return whether the current line contains the bytes
+     */
+    boolean contains(byte[] pattern) {
+        for (int i = lineStart; i + pattern.length <= lineEnd; i++) {
+            if (this.regionMatches(i, pattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean regionMatches(int from, byte[] pattern) {
+        for (int j = 0; j < pattern.length; j++) {
+            if (bytes[from + j] != pattern[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the current line consists of ASCII characters only
+     */
+    boolean isAscii() {
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (bytes[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether a byte is an ASCII character for which {@link Character#isWhitespace(char)} holds
+     */
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b >= '\t' && b <= '\r' || b >= 0x1C && b <= 0x1F;
+    }
+
+    void skipWhitespace() {
+        while (position < lineEnd && isWhitespace(bytes[position])) {
+            position++;
+        }
+    }
+
+    /**
+     * Skip a byte at the cursor if it is the expected one, without skipping whitespace before it
+     *
+     * @param expected the expected byte
+     * @return whether the byte was skipped
+     */
+    boolean acceptNext(char expected) {
+        if (position < lineEnd && bytes[position] == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Skip whitespace, then skip a byte if it is the expected one
+     *
+     * @param expected the expected byte
+     * @return whether the byte was skipped
+     */
+    boolean accept(char expected) {
+        this.skipWhitespace();
+        if (position < lineEnd && bytes[position] == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Move the cursor past the next occurrence of a byte
+     *
+     * @param delimiter the byte
+     * @return whether the byte was found; if not, the cursor is not moved
+     */
+    boolean skipPast(char delimiter) {
+        var index = this.indexOf(delimiter);
+        if (index < 0) {
+            return false;
+        }
+        this.position = index + 1;
+        return true;
+    }
+
+    /**
+     * @param delimiter the byte
+     * @return index of the next occurrence of the byte from the cursor, or -1 if it is not in the rest of the line
+     */
+    int indexOf(char delimiter) {
+        return this.indexOf(delimiter, position);
+    }
+
+    /**
+     * @param delimiter the byte
+     * @param from      index in the current line to search from
+     * @return index of the next occurrence of the byte from the index, or -1 if it is not in the rest of the line
+     */
+    int indexOf(char delimiter, int from) {
+        for (int i = from; i < lineEnd; i++) {
+            if (bytes[i] == delimiter) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return whether only whitespace is left in the current line
+     */
+    boolean isAtEnd() {
+        this.skipWhitespace();
+        return position == lineEnd;
+    }
+
+    /**
+     * Skip whitespace and parse a decimal integer with an optional sign, as {@link Integer#parseInt(String)} does
+     *
+     * @return the integer
+     * @throws NumberFormatException if there is no integer at the cursor, or it does not fit in an {@code int}
+     */
+    int parseInt() {
+        this.skipWhitespace();
+        var negative = position < lineEnd && bytes[position] == '-';
+        var signed = negative || position < lineEnd && bytes[position] == '+';
+        var start = signed ? position + 1 : position;
+        var end = start;
+        long value = 0;
+        while (end < lineEnd && bytes[end] >= '0' && bytes[end] <= '9') {
+            value = value * 10 + (bytes[end] - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("integer too large");
+            }
+            end++;
+        }
+        if (end == start) {
+            throw new NumberFormatException("integer expected at column " + (position - lineStart + 1));
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("integer too large");
+        }
+        this.position = end;
+        return (int) value;
+    }
+
+    /**
+     * Check whether a region of the current line, without surrounding whitespace, consists of the expected bytes
+     *
+     * @param from     start of the region
+     * @param to       end of the region (exclusive)
+     * @param expected the expected bytes
+     * @return whether the region matches
+     */
+    boolean regionEquals(int from, int to, byte[] expected) {
+        while (from < to && isWhitespace(bytes[from])) {
+            from++;
+        }
+        while (to > from && isWhitespace(bytes[to - 1])) {
+            to--;
+        }
+        return to - from == expected.length && this.regionMatches(from, expected);
+    }
+
+    /**
+     * @param from start of a region of the current line
+     * @param to   end of the region (exclusive)
+     * @return the region without surrounding whitespace as a string
+     */
+    String decode(int from, int to) {
+        while (from < to && isWhitespace(bytes[from])) {
+            from++;
+        }
+        while (to > from && isWhitespace(bytes[to - 1])) {
+            to--;
+        }
+        return new String(bytes, from, to - from, charset);
+    }
+
+    int getPosition() {
+        return position;
+    }
+
+    void setPosition(int position) {
+        this.position = position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -7,14 +7,20 @@ import castle.comp3021.assignment.protocol.exception.InvalidGameException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.function.Consumer;
 
 public class Deserializer {
+    /**
+     * Marker of the end of the move records
+     */
+    private static final byte[] END = "END".getBytes(StandardCharsets.US_ASCII);
+
     @NotNull
     private Path path;
 
@@ -39,26 +45,32 @@ public class Deserializer {
     /**
      * Returns the first non-empty and non-comment (starts with '#') line from the reader.
      *
-     * @param br {@link BufferedReader} to read from.
+     * @param br {@link ByteLineReader} to read from.
      * @return First line that is a parsable line, or {@code null} there are no lines to read.
      * @throws IOException if the reader fails to read a line
-     * @throws InvalidGameException if unexpected end of file
      */
     @Nullable
-    private String getFirstNonEmptyLine(@NotNull final BufferedReader br) throws IOException {
+    private String getFirstNonEmptyLine(@NotNull final ByteLineReader br) throws IOException {
         // TODO
-        String line = br.readLine();
-        while (line != null) {
-            if (!line.isBlank() && !line.startsWith("#")) {
-                return line;
-            }
-            line = br.readLine();
-        }
-        return null;
+        return br.nextLine() ? br.getLine() : null;
     }
 
+    /**
+     * Parse the game and keep all move records, see {@link Deserializer#getMoveRecords()}
+     */
     public void parseGame() {
-        try (var reader = new BufferedReader(new FileReader(path.toFile()))) {
+        this.parseGame(this.moveRecords::add);
+    }
+
+    /**
+     * Parse the game, passing each move record to a consumer as soon as it is read instead of keeping it, so that
+     * files with any number of moves can be processed in constant memory. The configuration, central place and
+     * scores are loaded before the first move record is passed.
+     *
+     * @param consumer receives the move records in order
+     */
+    public void parseGame(@NotNull Consumer<MoveRecord> consumer) {
+        try (var reader = new ByteLineReader(path, Charset.defaultCharset())) {
             String line;
 
             int size;
@@ -155,10 +167,13 @@ public class Deserializer {
              * - {@link Deserializer#parseMove(String)} ()}
              * - {@link Deserializer#parsePlace(String)} ()}
              */
-            line = getFirstNonEmptyLine(reader);
-            while (line != null && !line.contains("END")) {
-                this.moveRecords.add(parseMoveRecord(line.strip()));
-                line = getFirstNonEmptyLine(reader);
+            // move records are tokenized in the read buffer, without creating a string per line
+            byte[][] playerNames = new byte[numPlayers][];
+            for (int i = 0; i < numPlayers; i++) {
+                playerNames[i] = players[i].getName().getBytes(Charset.defaultCharset());
+            }
+            while (reader.nextLine() && !reader.contains(END)) {
+                consumer.accept(parseMoveRecord(reader, players, playerNames));
             }
 
         } catch (IOException ioe) {
@@ -183,16 +198,121 @@ public class Deserializer {
     }
 
     /**
-     * Parse the string into a {@link MoveRecord}
+     * Parse the current line of the reader into a {@link MoveRecord}
      * Handle InvalidConfigurationError if the parse fails.
-     * @param moveRecordString a string of a move record
+     * <p>
+     * Lines of the form written by {@link MoveRecord#toString()} are tokenized in place; other lines are decoded and
+     * parsed by {@link Deserializer#parseMoveRecord(String, Player[])}, so that both accept the same lines with the
+     * same results.
+     * @param line reader at a line of a move record
+     * @param players players of the game, which are reused for the records of their moves
+     * @param playerNames encoded names of the players
      * @return a {@link MoveRecord}
      */
-    private MoveRecord parseMoveRecord(String moveRecordString){
-        // TODO
-        Player player = new ConsolePlayer(moveRecordString.split("; ")[0].split(":")[1].strip());
-        Move move = parseMove(moveRecordString.split("; ")[1].split(":")[1].strip());
-        return new MoveRecord(player, move);
+    private MoveRecord parseMoveRecord(ByteLineReader line, Player[] players, byte[][] playerNames) {
+        MoveRecord moveRecord = parseCanonicalMoveRecord(line, players, playerNames);
+        if (moveRecord != null) {
+            return moveRecord;
+        }
+        return parseMoveRecord(line.getLine().strip(), players);
+    }
+
+    /**
+     * Parse the current line of the reader if it has the form {@code <label>:<name>; <label>:(x,y)->(x,y)}, with
+     * ASCII characters only, no ':' or ';' in the labels or the name, and optional whitespace around the name and the
+     * tokens of the move
+     * @param line reader at a line of a move record
+     * @param players players of the game, which are reused for the records of their moves
+     * @param playerNames encoded names of the players
+     * @return a {@link MoveRecord}, or null if the line has another form
+     */
+    @Nullable
+    private MoveRecord parseCanonicalMoveRecord(ByteLineReader line, Player[] players, byte[][] playerNames) {
+        if (!line.isAscii()) {
+            return null;
+        }
+        int nameStart = line.indexOf(':') + 1;
+        int nameEnd = line.indexOf(';');
+        if (nameStart == 0 || nameEnd <= nameStart || line.indexOf(';', nameEnd + 1) >= 0) {
+            return null;
+        }
+        int nextColon = line.indexOf(':', nameStart);
+        if (nextColon >= 0 && nextColon < nameEnd) {
+            return null;
+        }
+        line.setPosition(nameEnd + 1);
+        if (!line.acceptNext(' ') || !line.skipPast(':') || line.indexOf(':') >= 0) {
+            return null;
+        }
+        Place source = parseCanonicalPlace(line);
+        if (source == null || !line.accept('-') || !line.acceptNext('>')) {
+            return null;
+        }
+        Place destination = parseCanonicalPlace(line);
+        if (destination == null || !line.isAtEnd()) {
+            return null;
+        }
+        Player player = null;
+        for (int i = 0; i < players.length && player == null; i++) {
+            if (line.regionEquals(nameStart, nameEnd, playerNames[i])) {
+                player = players[i];
+            }
+        }
+        if (player == null) {
+            player = new ConsolePlayer(line.decode(nameStart, nameEnd));
+        }
+        return new MoveRecord(player, new Move(source, destination));
+    }
+
+    /**
+     * Parse a place {@code (x,y)} at the cursor of the reader
+     * @param line reader at the place
+     * @return {@link Place}, or null if there is no such place at the cursor
+     */
+    @Nullable
+    private Place parseCanonicalPlace(ByteLineReader line) {
+        if (!line.accept('(')) {
+            return null;
+        }
+        int x, y;
+        try {
+            x = line.parseInt();
+            if (!line.accept(',')) {
+                return null;
+            }
+            y = line.parseInt();
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return line.accept(')') ? Place.of(x, y) : null;
+    }
+
+    /**
+     * Parse a string of move record to a {@link MoveRecord}
+     * Handle InvalidConfigurationError if the parse fails.
+     * @param moveRecordString given string
+     * @param players players of the game, which are reused for the records of their moves
+     * @return a {@link MoveRecord}
+     */
+    private MoveRecord parseMoveRecord(String moveRecordString, Player[] players) {
+        String playerName;
+        String moveString;
+        try {
+            playerName = moveRecordString.split("; ")[0].split(":")[1].strip();
+            moveString = moveRecordString.split("; ")[1].split(":")[1].strip();
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new InvalidConfigurationError("Invalid move record");
+        }
+        Player player = null;
+        for (int i = 0; i < players.length && player == null; i++) {
+            if (players[i].getName().equals(playerName)) {
+                player = players[i];
+            }
+        }
+        if (player == null) {
+            player = new ConsolePlayer(playerName);
+        }
+        return new MoveRecord(player, parseMove(moveString));
     }
 
     /**
@@ -202,7 +322,6 @@ public class Deserializer {
      * @return {@link Move}
      */
     private Move parseMove(String moveString) {
-        // TODO
         String[] places = moveString.split("->");
         if (places.length != 2) {
             throw new InvalidConfigurationError("Move should have a source and a destination");
@@ -235,7 +354,7 @@ public class Deserializer {
         } catch (NumberFormatException e) {
             throw new InvalidConfigurationError("Invalid coordinates");
         }
-        return new Place(x, y);
+        return Place.of(x, y);
     }
 
 
@@ -5,7 +5,6 @@ import castle.comp3021.assignment.protocol.*;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 
 public class JesonMor extends Game {
     public JesonMor() {
@@ -30,7 +29,7 @@ public class JesonMor extends Game {
         // reset all things
         Player winner;
         this.numMoves = 0;
-        this.board = configuration.getInitialBoard();
+        this.setBoard(configuration.getInitialBoard());
         this.currentPlayer = null;
         this.refreshOutput();
         while (true) {
@@ -67,6 +66,9 @@ public class JesonMor extends Game {
                 System.out.println();
                 System.out.println("Congratulations! ");
                 System.out.printf("Winner: %s%s%s\n", player.getColor(), player.getName(), Color.DEFAULT);
+                for (var each : this.configuration.getPlayers()) {
+                    each.onGameEnd();
+                }
                 return winner;
             }
         }
@@ -95,20 +97,17 @@ public class JesonMor extends Game {
             winner = lastPlayer;
         } else {
             // second way to win: one player captures all the pieces of other players
+            // the bitboard keeps the number of pieces of each player, so this does not scan the board
             Player remainingPlayer = null;
-            for (int i = 0; i < this.configuration.getSize(); i++) {
-                for (int j = 0; j < this.configuration.getSize(); j++) {
-                    var piece = this.getPiece(i, j);
-                    if (piece == null) {
-                        continue;
-                    }
-                    if (remainingPlayer == null) {
-                        remainingPlayer = piece.getPlayer();
-                    } else if (remainingPlayer != piece.getPlayer()) {
-                        // there are still two players having pieces on board
-                        return null;
-                    }
+            for (int i = 0; i < this.configuration.getPlayers().length; i++) {
+                if (this.bitboard.isEmpty(i)) {
+                    continue;
                 }
+                if (remainingPlayer != null) {
+                    // there are still two players having pieces on board
+                    return null;
+                }
+                remainingPlayer = this.configuration.getPlayers()[i];
             }
             // if the previous for loop terminates, then there must be 1 player on board (it cannot be null).
             // then winner appears
@@ -118,6 +117,44 @@ public class JesonMor extends Game {
         return winner;
     }
 
+    /**
+     * Get the winner of the game right after a move made by {@link Game#makeMove(int)}, with the same rules as
+     * {@link JesonMor#getWinner(Player, Piece, Move)}.
+     *
+     * @param lastMove the last move, encoded by {@link PackedMove}
+     * @return index of the winner in {@link Configuration#getPlayers()}, or -1 if there is no winner yet
+     */
+    @Override
+    public int getWinnerIndex(int lastMove) {
+        // no winner within numMovesProtection moves
+        if (this.numMoves <= this.configuration.getNumMovesProtection()) {
+            return -1;
+        }
+        var destination = PackedMove.destination(lastMove);
+        var lastPlayer = this.bitboard.isOccupiedBy(destination, 0) ? 0 : 1;
+
+        // first way to win: a knight leaves the central square
+        var centralPlace = this.configuration.getCentralPlace();
+        var central = this.bitboard.square(centralPlace.x(), centralPlace.y());
+        if (PackedMove.source(lastMove) == central && destination != central
+                && this.bitboard.has(destination, lastPlayer, Bitboard.KNIGHT)) {
+            return lastPlayer;
+        }
+
+        // second way to win: one player captures all the pieces of other players
+        var remainingPlayer = -1;
+        for (int i = 0; i < this.configuration.getPlayers().length; i++) {
+            if (this.bitboard.isEmpty(i)) {
+                continue;
+            }
+            if (remainingPlayer >= 0) {
+                return -1;
+            }
+            remainingPlayer = i;
+        }
+        return remainingPlayer;
+    }
+
     /**
      * Update the score of a player according to the piece and corresponding move made by him just now.
      *
@@ -148,35 +185,40 @@ public class JesonMor extends Game {
                 : "cannot capture a piece belonging to the same player";
 
         // move the piece
-        this.board[move.getDestination().x()][move.getDestination().y()] = sourcePiece;
-        this.board[move.getSource().x()][move.getSource().y()] = null;
+        this.setPiece(move.getDestination().x(), move.getDestination().y(), sourcePiece);
+        this.setPiece(move.getSource().x(), move.getSource().y(), null);
 
         moveRecords.add(new MoveRecord(getCurrentPlayer(), move));
     }
 
     /**
      * Get all available moves of one player.
+     * The moves are computed once for each position, see {@link Game#getLegalMoves(Player)}.
      *
      * @param player the player whose available moves to get
      * @return an array of available moves
      */
     public @NotNull Move[] getAvailableMoves(Player player) {
-        var moves = new ArrayList<Move>();
+        return this.getLegalMoves(player).toMoves();
+    }
+
+    /**
+     * Get all available moves of one player without allocating.
+     *
+     * @param player the player whose available moves to get
+     * @param moves  the list to fill with moves encoded by {@link PackedMove}; it is cleared first
+     */
+    @Override
+    public void getAvailableMoves(Player player, @NotNull IntMoveList moves) {
+        moves.clear();
         // find all pieces belonging to the player
-        for (int i = 0; i < this.configuration.getSize(); i++) {
-            for (int j = 0; j < this.configuration.getSize(); j++) {
-                var piece = this.getPiece(i, j);
-                if (piece == null) {
-                    continue;
-                }
-                if (!piece.getPlayer().equals(player)) {
-                    continue;
-                }
-                var candidateMoves = piece.getAvailableMoves(this, new Place(i, j));
-                moves.addAll(Arrays.asList(candidateMoves));
-            }
+        var playerIndex = this.getPlayerIndex(player);
+        for (int square = this.bitboard.nextSquare(playerIndex, 0); square >= 0;
+             square = this.bitboard.nextSquare(playerIndex, square + 1)) {
+            var piece = this.board[this.bitboard.x(square)][this.bitboard.y(square)];
+            assert piece != null;
+            piece.generateMoves(this, square, moves);
         }
-        return moves.toArray(new Move[0]);
     }
 
 
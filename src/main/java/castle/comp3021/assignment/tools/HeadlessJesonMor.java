@@ -0,0 +1,118 @@
+package castle.comp3021.assignment.tools;
+
+import castle.comp3021.assignment.protocol.*;
+import castle.comp3021.assignment.textversion.JesonMor;
+
+/**
+ * Jeson Mor without any console output, for playing many games in a row.
+ * The rules are the same as {@link JesonMor}; a game that has not ended after a maximum number of moves is stopped
+ * without a winner.
+ */
+public class HeadlessJesonMor extends JesonMor {
+    /**
+     * Maximum number of moves meaning that games are never stopped
+     */
+    public static final int NO_MOVE_LIMIT = 0;
+
+    private final int maxMoves;
+
+    /**
+     * @param configuration configuration of the game
+     * @param maxMoves      number of moves after which the game is stopped without a winner, or
+     *                      {@link HeadlessJesonMor#NO_MOVE_LIMIT}
+     */
+    public HeadlessJesonMor(Configuration configuration, int maxMoves) {
+        super(configuration);
+        this.maxMoves = maxMoves;
+    }
+
+    /**
+     * Play the game in the same way as {@link JesonMor#start()}, without output. All players are told when the game
+     * ends ({@link Player#onGameEnd()}), also when it is stopped after the maximum number of moves or by an exception.
+     *
+     * @return the winner, or null if the game was stopped after the maximum number of moves
+     */
+    @Override
+    public Player start() {
+        try {
+            return this.play();
+        } finally {
+            for (var player : this.configuration.getPlayers()) {
+                player.onGameEnd();
+            }
+        }
+    }
+
+    private Player play() {
+        this.numMoves = 0;
+        this.setBoard(configuration.getInitialBoard());
+        this.currentPlayer = null;
+        var players = this.configuration.getPlayers();
+        while (maxMoves == NO_MOVE_LIMIT || this.numMoves < maxMoves) {
+            var player = players[this.numMoves % players.length];
+            this.currentPlayer = player;
+            var availableMoves = this.getAvailableMoves(player);
+            if (availableMoves.length <= 0) {
+                // the player with lower score wins
+                if (players[0].getScore() < players[1].getScore()) {
+                    return players[0];
+                } else if (players[0].getScore() > players[1].getScore()) {
+                    return players[1];
+                }
+                return player;
+            }
+            var winner = this.playMove(this.chooseMove(player, availableMoves));
+            if (winner != null) {
+                return winner;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Ask the player for its next move
+     *
+     * @param player         the player to move
+     * @param availableMoves available moves of the player
+     * @return the move to make
+     */
+    protected Move chooseMove(Player player, Move[] availableMoves) {
+        return player.nextMove(this, availableMoves);
+    }
+
+    /**
+     * Make a move of the current player in the same way as {@link JesonMor#start()}: the move is recorded, and the
+     * number of moves and the score are updated.
+     *
+     * @param move the move to make, which must be valid
+     * @return the winner, or null if there is no winner yet
+     */
+    public Player playMove(Move move) {
+        var player = this.getCurrentPlayer();
+        this.currentPlayer = player;
+        var movedPiece = this.getPiece(move.getSource());
+        this.movePiece(move);
+        this.numMoves++;
+        this.updateScore(player, movedPiece, move);
+        return this.getWinner(player, movedPiece, move);
+    }
+
+    /**
+     * Update the score in the same way as {@link JesonMor#updateScore(Player, Piece, Move)}, without output.
+     */
+    @Override
+    public void updateScore(Player player, Piece piece, Move move) {
+        var newScore = player.getScore();
+        newScore += Math.abs(move.getSource().x() - move.getDestination().x());
+        newScore += Math.abs(move.getSource().y() - move.getDestination().y());
+        player.setScore(newScore);
+    }
+
+    @Override
+    public void refreshOutput() {
+    }
+
+    public int getNumMoves() {
+        return numMoves;
+    }
+}
@@ -0,0 +1,204 @@
+package castle.comp3021.assignment.tools;
+
+import castle.comp3021.assignment.player.search.OpeningBook;
+import castle.comp3021.assignment.protocol.Configuration;
+import castle.comp3021.assignment.protocol.Move;
+import castle.comp3021.assignment.protocol.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Builds an {@link OpeningBook} from games of a kind of player against itself.
+ * <p>
+ * The first moves of each game are recorded with the position they were played in. A move gets 2 points for each game
+ * won by the player who made it, and 1 point for each game stopped without a winner; the points are its weight in the
+ * book. Moves that never led to a win or an unfinished game are left out. To play different openings, the first moves
+ * of each game can be chosen at random instead of by the players; they are recorded as well.
+ * <p>
+ * Usage: {@code OpeningBookBuilder <player class> <number of games> [size] [numMovesProtection] [threads] [plies]
+ * [randomPlies] [output]} and the options of {@link PlayerSettings}. Player classes are given as for
+ * {@link Simulator}. By default the book is written to {@link OpeningBook#DEFAULT_DIRECTORY}, where computer players
+ * look for it.
+ */
+public class OpeningBookBuilder {
+    /**
+     * Default number of moves of each game recorded in the book
+     */
+    public static final int DEFAULT_PLIES = 8;
+
+    /**
+     * Default number of moves at the start of each game that are chosen at random
+     */
+    public static final int DEFAULT_RANDOM_PLIES = 2;
+
+    private static final int WIN_POINTS = 2;
+
+    private static final int UNFINISHED_POINTS = 1;
+
+    @NotNull
+    private final Function<String, Player> player;
+
+    private final int size;
+
+    private final int numMovesProtection;
+
+    private final int plies;
+
+    private final int randomPlies;
+
+    /**
+     * @param player             creates a player given its name
+     * @param size               size of gameboard
+     * @param numMovesProtection number of moves with capture protection
+     * @param plies              number of moves of each game recorded in the book
+     * @param randomPlies        number of moves at the start of each game that are chosen at random
+     */
+    public OpeningBookBuilder(@NotNull Function<String, Player> player, int size, int numMovesProtection,
+                              int plies, int randomPlies) {
+        this.player = player;
+        this.size = size;
+        this.numMovesProtection = numMovesProtection;
+        this.plies = plies;
+        this.randomPlies = randomPlies;
+    }
+
+    /**
+     * Play games in parallel and collect the weights of the recorded moves
+     *
+     * @param numGames   number of games
+     * @param numThreads number of games played at the same time
+     * @return weights of moves indexed by position key, as taken by
+     * {@link OpeningBook#write(Path, int, int, Map)}
+     */
+    public Map<Long, Map<Integer, Integer>> build(int numGames, int numThreads) {
+        var nextGame = new AtomicInteger();
+        var executor = Executors.newFixedThreadPool(numThreads);
+        var results = new ArrayList<Future<Map<Long, Map<Integer, Integer>>>>();
+        try {
+            for (int i = 0; i < numThreads; i++) {
+                results.add(executor.submit(() -> {
+                    var weights = new HashMap<Long, Map<Integer, Integer>>();
+                    while (nextGame.getAndIncrement() < numGames) {
+                        this.play(weights);
+                    }
+                    return weights;
+                }));
+            }
+            var total = new HashMap<Long, Map<Integer, Integer>>();
+            for (var result : results) {
+                merge(total, result.get());
+            }
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("building opening book interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("building opening book failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Play one game and add the points of its recorded moves
+     */
+    private void play(Map<Long, Map<Integer, Integer>> weights) {
+        var white = player.apply("White");
+        var black = player.apply("Black");
+        var configuration = new Configuration(size, new Player[]{white, black}, numMovesProtection);
+        configuration.setAllInitialPieces();
+        configuration.setNumSearchThreads(1);
+        configuration.setPondering(false);
+        var game = new RecordingGame(configuration);
+        var winner = game.start();
+
+        for (int ply = 0; ply < game.keys.size(); ply++) {
+            var mover = configuration.getPlayers()[ply % 2];
+            var points = winner == null ? UNFINISHED_POINTS : winner == mover ? WIN_POINTS : 0;
+            weights.computeIfAbsent(game.keys.get(ply), key -> new HashMap<>())
+                    .merge(game.moves.get(ply), points, Integer::sum);
+        }
+    }
+
+    private static void merge(Map<Long, Map<Integer, Integer>> total, Map<Long, Map<Integer, Integer>> weights) {
+        weights.forEach((key, moves) -> {
+            var totalMoves = total.computeIfAbsent(key, k -> new HashMap<>());
+            moves.forEach((move, points) -> totalMoves.merge(move, points, Integer::sum));
+        });
+    }
+
+    /**
+     * A game that chooses its first moves at random and records the first moves played
+     */
+    private class RecordingGame extends HeadlessJesonMor {
+        private final ArrayList<Long> keys = new ArrayList<>();
+
+        private final ArrayList<Integer> moves = new ArrayList<>();
+
+        private RecordingGame(Configuration configuration) {
+            super(configuration, Simulator.DEFAULT_MAX_MOVES);
+        }
+
+        @Override
+        protected Move chooseMove(Player player, Move[] availableMoves) {
+            if (this.numMoves < randomPlies) {
+                return availableMoves[ThreadLocalRandom.current().nextInt(availableMoves.length)];
+            }
+            return super.chooseMove(player, availableMoves);
+        }
+
+        @Override
+        public Player playMove(Move move) {
+            if (this.numMoves < plies) {
+                keys.add(this.getPositionKey());
+                moves.add(this.toPackedMove(move));
+            }
+            return super.playMove(move);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        var helper = "usage: OpeningBookBuilder <player class> <number of games> [size] [numMovesProtection] "
+                + "[threads] [plies] [randomPlies] [output] " + PlayerSettings.USAGE;
+        var settings = new PlayerSettings();
+        args = settings.parseOptions(args);
+        if (args.length < 2 || args.length > 8) {
+            throw new IllegalArgumentException(helper);
+        }
+        var player = settings.playerFactory(args[0]);
+        int numGames, size, numMovesProtection, numThreads, plies, randomPlies;
+        try {
+            numGames = Integer.parseInt(args[1]);
+            size = args.length > 2 ? Integer.parseInt(args[2]) : 9;
+            numMovesProtection = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+            numThreads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+            plies = args.length > 5 ? Integer.parseInt(args[5]) : DEFAULT_PLIES;
+            randomPlies = args.length > 6 ? Integer.parseInt(args[6]) : DEFAULT_RANDOM_PLIES;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(helper);
+        }
+        var output = args.length > 7 ? Path.of(args[7])
+                : OpeningBook.DEFAULT_DIRECTORY.resolve(OpeningBook.fileName(size, numMovesProtection));
+
+        var weights = new OpeningBookBuilder(player, size, numMovesProtection, plies, randomPlies)
+                .build(numGames, numThreads);
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        OpeningBook.write(output, size, numMovesProtection, weights);
+        var book = OpeningBook.open(output);
+        System.out.printf("positions:%d; entries:%d; written to %s%n", weights.size(), book.getNumEntries(), output);
+    }
+}
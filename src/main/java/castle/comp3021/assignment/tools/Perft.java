@@ -0,0 +1,185 @@
+package castle.comp3021.assignment.tools;
+
+import castle.comp3021.assignment.player.RandomPlayer;
+import castle.comp3021.assignment.protocol.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+/**
+ * Counts the positions reachable in a number of moves (perft), to measure the speed of move generation and to check
+ * that changes to it do not change the available moves.
+ * <p>
+ * Positions are visited with {@link Game#getAvailableMoves(Player, IntMoveList)}, {@link Game#makeMove(int)} and
+ * {@link Game#unmakeMove()}. A position in which the game has ended (see {@link Game#getWinnerIndex(int)}, or the
+ * player to move has no available moves) is counted as a leaf and is not searched further.
+ * <p>
+ * Usage: {@code Perft <depth> [size] [numMovesProtection] [threads] [divide]}, which counts from the initial position
+ * of {@link Configuration#setAllInitialPieces()}; with {@code divide}, the count of each first move is printed.
+ */
+public class Perft {
+    /**
+     * Move list of each ply, reused between nodes
+     */
+    private final ArrayList<IntMoveList> moveLists = new ArrayList<>();
+
+    /**
+     * Count the leaves of the tree of moves
+     *
+     * @param game  the game, which is restored to the same position afterwards
+     * @param depth number of moves
+     * @return number of leaves
+     */
+    public long count(Game game, int depth) {
+        return this.count(game, depth, 0);
+    }
+
+    private long count(Game game, int depth, int ply) {
+        if (depth == 0) {
+            return 1;
+        }
+        if (moveLists.size() == ply) {
+            moveLists.add(new IntMoveList());
+        }
+        var moves = moveLists.get(ply);
+        game.getAvailableMoves(game.getCurrentPlayer(), moves);
+        if (moves.isEmpty()) {
+            // the game has ended
+            return 1;
+        }
+        if (depth == 1) {
+            // every move leads to a leaf, whether or not it ends the game
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            var move = moves.get(i);
+            game.makeMove(move);
+            nodes += game.getWinnerIndex(move) >= 0 ? 1 : this.count(game, depth - 1, ply + 1);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Count the leaves of the tree of moves for each first move, searching the first moves in parallel
+     *
+     * @param game       the game, which is not changed
+     * @param depth      number of moves, at least 1
+     * @param numThreads number of threads
+     * @return the result
+     */
+    public static Result divide(Game game, int depth, int numThreads) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("depth of divide must be at least 1");
+        }
+        var startTime = System.nanoTime();
+        var rootMoves = new IntMoveList();
+        game.getAvailableMoves(game.getCurrentPlayer(), rootMoves);
+        var tasks = new ArrayList<Callable<Long>>();
+        for (int i = 0; i < rootMoves.size(); i++) {
+            var move = rootMoves.get(i);
+            tasks.add(() -> {
+                var copy = game.clone();
+                copy.makeMove(move);
+                return copy.getWinnerIndex(move) >= 0 ? 1 : new Perft().count(copy, depth - 1);
+            });
+        }
+
+        var executor = Executors.newFixedThreadPool(numThreads);
+        var size = game.getConfiguration().getSize();
+        var counts = new LinkedHashMap<String, Long>();
+        try {
+            var results = executor.invokeAll(tasks);
+            for (int i = 0; i < results.size(); i++) {
+                counts.put(PackedMove.toString(rootMoves.get(i), size), results.get(i).get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("perft interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("perft failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        if (rootMoves.isEmpty()) {
+            // the game has ended at the root
+            return new Result(counts, 1, System.nanoTime() - startTime);
+        }
+        var nodes = counts.values().stream().mapToLong(Long::longValue).sum();
+        return new Result(counts, nodes, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Result of {@link Perft#divide(Game, int, int)}
+     */
+    public static class Result {
+        private final Map<String, Long> counts;
+
+        private final long nodes;
+
+        private final long elapsedNanos;
+
+        private Result(Map<String, Long> counts, long nodes, long elapsedNanos) {
+            this.counts = counts;
+            this.nodes = nodes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /* Getters start */
+
+        /**
+         * @return number of leaves after each first move, in the order of move generation
+         */
+        public Map<String, Long> getCounts() {
+            return counts;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getNodesPerSecond() {
+            return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+        }
+        /* Getters end */
+    }
+
+    public static void main(String[] args) {
+        var helper = "usage: Perft <depth> [size] [numMovesProtection] [threads] [divide]";
+        if (args.length < 1 || args.length > 5) {
+            throw new IllegalArgumentException(helper);
+        }
+        int depth, size, numMovesProtection, numThreads;
+        try {
+            depth = Integer.parseInt(args[0]);
+            size = args.length > 1 ? Integer.parseInt(args[1]) : 9;
+            numMovesProtection = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+            numThreads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(helper);
+        }
+        var showDivide = args.length > 4 && args[4].equals("divide");
+
+        var configuration = new Configuration(size,
+                new Player[]{new RandomPlayer("White"), new RandomPlayer("Black")}, numMovesProtection);
+        configuration.setAllInitialPieces();
+        var game = new HeadlessJesonMor(configuration, HeadlessJesonMor.NO_MOVE_LIMIT);
+
+        var result = divide(game, depth, numThreads);
+        if (showDivide) {
+            result.getCounts().forEach((move, count) -> System.out.println(move + ": " + count));
+            System.out.println();
+        }
+        System.out.printf("depth:%d; nodes:%d; time:%.3fs; nodes/sec:%.0f%n", depth, result.getNodes(),
+                result.getElapsedNanos() / 1e9, result.getNodesPerSecond());
+    }
+}
@@ -0,0 +1,171 @@
+package castle.comp3021.assignment.tools;
+
+import castle.comp3021.assignment.player.AlphaBetaPlayer;
+import castle.comp3021.assignment.player.MctsPlayer;
+import castle.comp3021.assignment.player.search.AlphaBeta;
+import castle.comp3021.assignment.player.search.MonteCarloTreeSearch;
+import castle.comp3021.assignment.player.search.TranspositionTable;
+import castle.comp3021.assignment.protocol.Color;
+import castle.comp3021.assignment.protocol.Player;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.function.Function;
+
+/**
+ * Search limits of the computer players created by the tools that play many games.
+ * <p>
+ * Players that search ({@link AlphaBetaPlayer} and {@link MctsPlayer}, and their subclasses) are created with these
+ * limits; other players are created with their constructor taking the name of the player. Unless a time limit is
+ * given, every move is searched for {@link PlayerSettings#DEFAULT_TIME_LIMIT_MILLIS} milliseconds, or without a time
+ * limit if the search of the player is limited by a depth or a number of playouts, so that games do not depend on the
+ * speed of the machine.
+ * <p>
+ * Limits are given as command line options, see {@link PlayerSettings#USAGE}.
+ */
+public class PlayerSettings {
+    public static final String USAGE = "[--time <ms>] [--depth <plies>] [--playouts <n>] [--table <MB>]";
+
+    /**
+     * Default time limit of each move in milliseconds
+     */
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 100;
+
+    /**
+     * Default memory budget of the transposition table of each player in megabytes
+     */
+    public static final int DEFAULT_TABLE_SIZE_MB = 1;
+
+    private static final String PLAYER_PACKAGE = "castle.comp3021.assignment.player.";
+
+    /**
+     * Time limit of each move in milliseconds, or null if not given
+     */
+    private Long timeLimitMillis = null;
+
+    private int maxDepth = AlphaBeta.MAX_PLY;
+
+    private int maxPlayouts = MonteCarloTreeSearch.NO_PLAYOUT_LIMIT;
+
+    private int tableSizeMB = DEFAULT_TABLE_SIZE_MB;
+
+    /**
+     * Read the options of {@link PlayerSettings#USAGE} from command line arguments
+     *
+     * @param args command line arguments, in which the options may appear anywhere
+     * @return the other arguments, in order
+     * @throws IllegalArgumentException if an option has no value or an invalid value
+     */
+    public String[] parseOptions(String[] args) {
+        var positional = new ArrayList<String>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                positional.add(args[i]);
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("option " + args[i] + " needs a value");
+            }
+            var value = parsePositive(args[i], args[i + 1]);
+            switch (args[i]) {
+                case "--time" -> this.timeLimitMillis = value;
+                case "--depth" -> this.maxDepth = (int) Math.min(value, AlphaBeta.MAX_PLY);
+                case "--playouts" -> this.maxPlayouts = (int) Math.min(value, Integer.MAX_VALUE);
+                case "--table" -> this.tableSizeMB = (int) Math.min(value, Integer.MAX_VALUE);
+                default -> throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+            i++;
+        }
+        return positional.toArray(new String[0]);
+    }
+
+    private static long parsePositive(String option, String value) {
+        try {
+            var number = Long.parseLong(value);
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("option " + option + " needs a positive number");
+    }
+
+    /**
+     * @param limited whether the search of a player is limited by the depth or by the number of playouts
+     * @return time limit of each move of a player that searches in milliseconds, which is
+     * {@link AlphaBetaPlayer#NO_TIME_LIMIT} if no time limit was given and the search is limited otherwise
+     */
+    private long getTimeLimitMillis(boolean limited) {
+        if (this.timeLimitMillis != null) {
+            return this.timeLimitMillis;
+        }
+        return limited ? AlphaBetaPlayer.NO_TIME_LIMIT : DEFAULT_TIME_LIMIT_MILLIS;
+    }
+
+    /**
+     * Create a factory of players of a class, by reflection
+     *
+     * @param className simple name of a class in {@code castle.comp3021.assignment.player}, or a fully qualified name
+     * @return a factory of players of the class with these limits
+     * @throws IllegalArgumentException if the class is not a player or has no suitable constructor
+     */
+    public Function<String, Player> playerFactory(String className) {
+        Class<? extends Player> cls;
+        try {
+            var found = Class.forName(className.contains(".") ? className : PLAYER_PACKAGE + className);
+            if (!Player.class.isAssignableFrom(found)) {
+                throw new IllegalArgumentException(className + " is not a player");
+            }
+            cls = found.asSubclass(Player.class);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("unknown player class " + className);
+        }
+
+        try {
+            if (AlphaBetaPlayer.class.isAssignableFrom(cls)) {
+                var constructor = cls.getConstructor(String.class, Color.class, int.class, long.class,
+                        TranspositionTable.class);
+                var timeLimitMillis = this.getTimeLimitMillis(maxDepth < AlphaBeta.MAX_PLY);
+                return name -> newInstance(constructor, name, Color.BLUE, maxDepth, timeLimitMillis,
+                        new TranspositionTable(tableSizeMB));
+            } else if (MctsPlayer.class.isAssignableFrom(cls)) {
+                var constructor = cls.getConstructor(String.class, Color.class, int.class, long.class);
+                var timeLimitMillis = this.getTimeLimitMillis(maxPlayouts != MonteCarloTreeSearch.NO_PLAYOUT_LIMIT);
+                return name -> newInstance(constructor, name, Color.BLUE, maxPlayouts, timeLimitMillis);
+            }
+            var constructor = cls.getConstructor(String.class);
+            return name -> newInstance(constructor, name);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(className + " has no suitable constructor");
+        }
+    }
+
+    private static Player newInstance(Constructor<? extends Player> constructor, Object... args) {
+        try {
+            return constructor.newInstance(args);
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IllegalStateException("cannot create player " + constructor.getDeclaringClass().getName(), e);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IllegalArgumentException) {
+                throw (IllegalArgumentException) e.getCause();
+            }
+            throw new IllegalStateException("cannot create player " + constructor.getDeclaringClass().getName(),
+                    e.getCause());
+        }
+    }
+
+    /* Getters start */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public int getMaxPlayouts() {
+        return maxPlayouts;
+    }
+
+    public int getTableSizeMB() {
+        return tableSizeMB;
+    }
+    /* Getters end */
+}
@@ -0,0 +1,249 @@
+package castle.comp3021.assignment.tools;
+
+import castle.comp3021.assignment.protocol.Configuration;
+import castle.comp3021.assignment.protocol.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.IntSummaryStatistics;
+import java.util.LongSummaryStatistics;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Plays many games between two kinds of players on a thread pool, without any output, and reports the results.
+ * <p>
+ * The two players take turns to move first: player A moves first in even-numbered games and player B in odd-numbered
+ * games. Every game has its own {@link Configuration} and new players created by the player factories. Since games
+ * run in parallel, each game searches with one thread ({@link Configuration#setNumSearchThreads(int)}) and without
+ * pondering ({@link Configuration#setPondering(boolean)}).
+ * <p>
+ * Usage: {@code Simulator <player A class> <player B class> <number of games> [size] [numMovesProtection]
+ * [threads] [maxMoves]} and the options of {@link PlayerSettings}. Player classes are given by their simple
+ * name in {@code castle.comp3021.assignment.player} or their fully qualified name; players that search are created
+ * with the limits of the options, and other players with their constructor taking the name of the player.
+ */
+public class Simulator {
+    /**
+     * Default number of moves after which a game is stopped without a winner
+     */
+    public static final int DEFAULT_MAX_MOVES = 1000;
+
+    @NotNull
+    private final Function<String, Player> playerA;
+
+    @NotNull
+    private final Function<String, Player> playerB;
+
+    private final int size;
+
+    private final int numMovesProtection;
+
+    private final int maxMoves;
+
+    /**
+     * @param playerA            creates player A given its name
+     * @param playerB            creates player B given its name
+     * @param size               size of gameboard
+     * @param numMovesProtection number of moves with capture protection
+     * @param maxMoves           number of moves after which a game is stopped without a winner, or
+     *                           {@link HeadlessJesonMor#NO_MOVE_LIMIT}
+     */
+    public Simulator(@NotNull Function<String, Player> playerA, @NotNull Function<String, Player> playerB,
+                     int size, int numMovesProtection, int maxMoves) {
+        this.playerA = playerA;
+        this.playerB = playerB;
+        this.size = size;
+        this.numMovesProtection = numMovesProtection;
+        this.maxMoves = maxMoves;
+    }
+
+    /**
+     * Play games in parallel
+     *
+     * @param numGames   number of games
+     * @param numThreads number of games played at the same time
+     * @return results of all games
+     */
+    public Report run(int numGames, int numThreads) {
+        var startTime = System.nanoTime();
+        var nextGame = new AtomicInteger();
+        var executor = Executors.newFixedThreadPool(numThreads);
+        var reports = new ArrayList<Future<Report>>();
+        try {
+            for (int i = 0; i < numThreads; i++) {
+                reports.add(executor.submit(() -> {
+                    var report = new Report();
+                    for (int game = nextGame.getAndIncrement(); game < numGames; game = nextGame.getAndIncrement()) {
+                        this.play(game, report);
+                    }
+                    return report;
+                }));
+            }
+            var total = new Report();
+            for (var report : reports) {
+                total.merge(report.get());
+            }
+            total.elapsedNanos = System.nanoTime() - startTime;
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("simulation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("simulation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Play one game and add its result to a report
+     */
+    private void play(int index, Report report) {
+        var aFirst = index % 2 == 0;
+        var white = (aFirst ? playerA : playerB).apply("White");
+        var black = (aFirst ? playerB : playerA).apply("Black");
+        var configuration = new Configuration(size, new Player[]{white, black}, numMovesProtection);
+        configuration.setAllInitialPieces();
+        configuration.setNumSearchThreads(1);
+        configuration.setPondering(false);
+        var game = new HeadlessJesonMor(configuration, maxMoves);
+        var winner = game.start();
+
+        var a = aFirst ? white : black;
+        var b = aFirst ? black : white;
+        if (winner == null) {
+            report.unfinished++;
+        } else if (winner == a) {
+            report.winsA++;
+        } else {
+            report.winsB++;
+        }
+        report.lengths.accept(game.getNumMoves());
+        report.scoresA.accept(a.getScore());
+        report.scoresB.accept(b.getScore());
+    }
+
+    /**
+     * Results of a simulation
+     */
+    public static class Report {
+        private int winsA;
+
+        private int winsB;
+
+        private int unfinished;
+
+        private final LongSummaryStatistics lengths = new LongSummaryStatistics();
+
+        private final IntSummaryStatistics scoresA = new IntSummaryStatistics();
+
+        private final IntSummaryStatistics scoresB = new IntSummaryStatistics();
+
+        private long elapsedNanos;
+
+        private void merge(Report other) {
+            winsA += other.winsA;
+            winsB += other.winsB;
+            unfinished += other.unfinished;
+            lengths.combine(other.lengths);
+            scoresA.combine(other.scoresA);
+            scoresB.combine(other.scoresB);
+        }
+
+        /* Getters start */
+        public int getNumGames() {
+            return winsA + winsB + unfinished;
+        }
+
+        public int getWinsA() {
+            return winsA;
+        }
+
+        public int getWinsB() {
+            return winsB;
+        }
+
+        /**
+         * @return number of games stopped without a winner after the maximum number of moves
+         */
+        public int getUnfinished() {
+            return unfinished;
+        }
+
+        /**
+         * @return numbers of moves of the games
+         */
+        public LongSummaryStatistics getLengths() {
+            return lengths;
+        }
+
+        /**
+         * @return final scores of player A
+         */
+        public IntSummaryStatistics getScoresA() {
+            return scoresA;
+        }
+
+        /**
+         * @return final scores of player B
+         */
+        public IntSummaryStatistics getScoresB() {
+            return scoresB;
+        }
+
+        public double getGamesPerSecond() {
+            return elapsedNanos == 0 ? 0 : getNumGames() * 1e9 / elapsedNanos;
+        }
+        /* Getters end */
+
+        @Override
+        public String toString() {
+            return String.format("games:%d; A wins:%d; B wins:%d; unfinished:%d"
+                            + "\naverage length:%.1f; min:%d; max:%d"
+                            + "\nA score: average:%.1f; min:%d; max:%d"
+                            + "\nB score: average:%.1f; min:%d; max:%d"
+                            + "\ngames/sec:%.1f",
+                    getNumGames(), winsA, winsB, unfinished,
+                    lengths.getAverage(), lengths.getMin(), lengths.getMax(),
+                    scoresA.getAverage(), scoresA.getMin(), scoresA.getMax(),
+                    scoresB.getAverage(), scoresB.getMin(), scoresB.getMax(),
+                    getGamesPerSecond());
+        }
+    }
+
+    public static void main(String[] args) {
+        var helper = "usage: Simulator <player A class> <player B class> <number of games> [size] "
+                + "[numMovesProtection] [threads] [maxMoves] " + PlayerSettings.USAGE;
+        var settings = new PlayerSettings();
+        args = settings.parseOptions(args);
+        if (args.length < 3 || args.length > 7) {
+            throw new IllegalArgumentException(helper);
+        }
+        var playerA = settings.playerFactory(args[0]);
+        var playerB = settings.playerFactory(args[1]);
+        var numGames = parseArgument(args, 2, 0);
+        var size = parseArgument(args, 3, 9);
+        var numMovesProtection = parseArgument(args, 4, 1);
+        var numThreads = parseArgument(args, 5, Runtime.getRuntime().availableProcessors());
+        var maxMoves = parseArgument(args, 6, DEFAULT_MAX_MOVES);
+
+        var simulator = new Simulator(playerA, playerB, size, numMovesProtection, maxMoves);
+        System.out.println("A: " + args[0] + "; B: " + args[1]);
+        System.out.println(simulator.run(numGames, numThreads));
+    }
+
+    private static int parseArgument(String[] args, int index, int defaultValue) {
+        if (index >= args.length) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(args[index]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("argument " + (index + 1) + " is not a number");
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package castle.comp3021.assignment.tools;
+
+import castle.comp3021.assignment.piece.KnightMoveTable;
+import castle.comp3021.assignment.player.search.Tablebase;
+import castle.comp3021.assignment.player.search.TablebaseLayout;
+import castle.comp3021.assignment.protocol.Bitboard;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Computes a {@link Tablebase} by retrograde analysis.
+ * <p>
+ * Tables are solved in the order of {@link TablebaseLayout}, so the tables reached by captures are already solved.
+ * Each table is solved in passes over all its positions, one pass per distance: pass {@code d} marks a position as won
+ * in {@code d} plies if {@code d} is odd and a move leads to a position lost in less than {@code d} plies, and as lost
+ * in {@code d} plies if {@code d} is even and every move leads to a position won in less than {@code d} plies. Pass 1
+ * finds the moves that win immediately: a knight leaving the central place, or capturing the last piece of the
+ * opponent. Positions without available moves are never marked, since their winner depends on the scores. Each pass
+ * is split between threads; a pass only marks positions with its own distance, which never changes the result of
+ * another position in the same pass, so the values do not depend on the order in which positions are visited.
+ * <p>
+ * Usage: {@code TablebaseGenerator <size> [maxPieces] [threads] [output]}. By default the tablebase is written to
+ * {@link Tablebase#DEFAULT_DIRECTORY}, where computer players look for it.
+ */
+public class TablebaseGenerator {
+    /**
+     * Positions handled by one task of a pass
+     */
+    private static final int CHUNK_SIZE = 1 << 12;
+
+    private static final int[][] ARCHER_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+
+    /**
+     * Value of a move that wins immediately, see {@link TablebaseGenerator#valueAfter(Position, int, int)}
+     */
+    private static final int WON = -1;
+
+    private final TablebaseLayout layout;
+
+    private final int size;
+
+    private final int centralSquare;
+
+    private final KnightMoveTable knightMoves;
+
+    /**
+     * Values of the tables solved so far
+     */
+    private final byte[][] values;
+
+    /**
+     * Longest distance of each table solved so far
+     */
+    private final int[] longestDistances;
+
+    /**
+     * @param size      size of the gameboard
+     * @param maxPieces maximum number of pieces on the gameboard
+     */
+    public TablebaseGenerator(int size, int maxPieces) {
+        this.layout = new TablebaseLayout(size, maxPieces);
+        this.size = size;
+        this.centralSquare = (size / 2) * size + size / 2;
+        this.knightMoves = KnightMoveTable.forSize(size);
+        this.values = new byte[layout.getNumTables()][];
+        this.longestDistances = new int[layout.getNumTables()];
+        for (int table = 0; table < layout.getNumTables(); table++) {
+            if (layout.getNumPositions(table) > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("too many positions for a table; use fewer pieces");
+            }
+        }
+    }
+
+    /**
+     * Solve all tables
+     *
+     * @param numThreads number of threads
+     * @return values of the positions of each table of the layout
+     */
+    public byte[][] generate(int numThreads) {
+        return this.generate(numThreads, table -> {
+        });
+    }
+
+    /**
+     * Solve all tables, reporting each table when it is solved
+     *
+     * @param numThreads number of threads
+     * @param progress   called with the statistics of each table when it is solved, in the order of the layout
+     * @return values of the positions of each table of the layout
+     */
+    public byte[][] generate(int numThreads, @NotNull Consumer<TableResult> progress) {
+        var pool = new ForkJoinPool(numThreads);
+        try {
+            for (int table = 0; table < layout.getNumTables(); table++) {
+                var startTime = System.nanoTime();
+                var table0 = table;
+                pool.submit(() -> this.solve(table0)).get();
+                progress.accept(new TableResult(describe(layout.getCounts(table)), layout.getNumPositions(table),
+                        longestDistances[table], System.nanoTime() - startTime));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("tablebase generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("tablebase generation failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return values;
+    }
+
+    /**
+     * Solve one table with parallel passes
+     */
+    private void solve(int table) {
+        var numPositions = (int) layout.getNumPositions(table);
+        values[table] = new byte[numPositions];
+        // captures lead to earlier tables, whose distances can be longer than those found so far in this table
+        var longestEarlier = Arrays.stream(longestDistances, 0, table).max().orElse(0);
+        var numChunks = (numPositions + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        for (int distance = 1; distance <= Tablebase.MAX_DISTANCE; distance++) {
+            var marked = new AtomicLong();
+            var pass = distance;
+            IntStream.range(0, numChunks).parallel().forEach(chunk -> {
+                var position = new Position();
+                var count = 0;
+                var end = Math.min(numPositions, (chunk + 1) * CHUNK_SIZE);
+                for (int index = chunk * CHUNK_SIZE; index < end; index++) {
+                    if (values[table][index] == Tablebase.UNKNOWN && position.decode(table, index)
+                            && this.isMarkedInPass(position, pass)) {
+                        values[table][index] = (byte) pass;
+                        count++;
+                    }
+                }
+                marked.addAndGet(count);
+            });
+            if (marked.get() > 0) {
+                longestDistances[table] = distance;
+            } else if (distance > longestEarlier) {
+                // the next pass needs a position of this distance, in this table or an earlier one
+                break;
+            }
+        }
+    }
+
+    /**
+     * Check whether a position not marked so far is won (odd passes) or lost (even passes) in the given distance
+     */
+    private boolean isMarkedInPass(Position position, int pass) {
+        var wins = pass % 2 == 1;
+        var hasMoves = false;
+        var player = position.player;
+        var opponent = 1 - player;
+        for (int source = 0; source < size * size; source++) {
+            var piece = position.board[source];
+            if (piece < 0 || piece / Bitboard.NUM_TYPES != player) {
+                continue;
+            }
+            if (piece % Bitboard.NUM_TYPES == Bitboard.KNIGHT) {
+                for (int i = knightMoves.begin(source); i < knightMoves.end(source); i++) {
+                    var target = knightMoves.target(i);
+                    if (position.board[knightMoves.block(i)] >= 0 || position.isOccupiedBy(target, player)) {
+                        continue;
+                    }
+                    hasMoves = true;
+                    var value = this.valueAfter(position, source, target);
+                    if (wins ? isLossWithin(value, pass) : !isWinWithin(value, pass)) {
+                        return wins;
+                    }
+                }
+            } else {
+                var sourceX = source / size;
+                var sourceY = source % size;
+                for (var direction : ARCHER_DIRECTIONS) {
+                    var x = sourceX + direction[0];
+                    var y = sourceY + direction[1];
+                    while (x >= 0 && x < size && y >= 0 && y < size && position.board[x * size + y] < 0) {
+                        hasMoves = true;
+                        var value = this.valueAfter(position, source, x * size + y);
+                        if (wins ? isLossWithin(value, pass) : !isWinWithin(value, pass)) {
+                            return wins;
+                        }
+                        x += direction[0];
+                        y += direction[1];
+                    }
+                    // (x, y) is now the screen, if it is inside the board
+                    x += direction[0];
+                    y += direction[1];
+                    while (x >= 0 && x < size && y >= 0 && y < size && position.board[x * size + y] < 0) {
+                        x += direction[0];
+                        y += direction[1];
+                    }
+                    if (x >= 0 && x < size && y >= 0 && y < size && position.isOccupiedBy(x * size + y, opponent)) {
+                        hasMoves = true;
+                        var value = this.valueAfter(position, source, x * size + y);
+                        if (wins ? isLossWithin(value, pass) : !isWinWithin(value, pass)) {
+                            return wins;
+                        }
+                    }
+                }
+            }
+        }
+        // in even passes, every move leads to a win of the opponent
+        return !wins && hasMoves;
+    }
+
+    /**
+     * @return whether the value is a loss of the player to move in less than the distance
+     */
+    private static boolean isLossWithin(int value, int distance) {
+        return value == WON || value != Tablebase.UNKNOWN && !Tablebase.isWin(value) && value < distance;
+    }
+
+    /**
+     * @return whether the value is a win of the player to move in less than the distance
+     */
+    private static boolean isWinWithin(int value, int distance) {
+        return value != WON && value != Tablebase.UNKNOWN && Tablebase.isWin(value) && value < distance;
+    }
+
+    /**
+     * Value of the position after a move, from the point of view of the opponent of the player making it, or
+     * {@link TablebaseGenerator#WON} if the move wins immediately
+     */
+    private int valueAfter(Position position, int source, int destination) {
+        var piece = position.board[source];
+        if (piece % Bitboard.NUM_TYPES == Bitboard.KNIGHT && source == centralSquare) {
+            return WON;
+        }
+        var captured = position.board[destination];
+        var counts = position.nextCounts;
+        System.arraycopy(position.counts, 0, counts, 0, counts.length);
+        if (captured >= 0) {
+            counts[captured]--;
+            var opponent = captured / Bitboard.NUM_TYPES * Bitboard.NUM_TYPES;
+            if (counts[opponent + Bitboard.KNIGHT] + counts[opponent + Bitboard.ARCHER] == 0) {
+                return WON;
+            }
+        }
+        var table = layout.table(counts);
+        var squares = position.nextSquares;
+        long index = 0;
+        for (int group = 0; group < TablebaseLayout.NUM_GROUPS; group++) {
+            var count = 0;
+            for (int i = 0; i < position.counts[group]; i++) {
+                var square = position.squares[group][i];
+                if (group == captured && square == destination) {
+                    continue;
+                }
+                squares[count++] = group == piece && square == source ? destination : square;
+            }
+            if (group == piece) {
+                Arrays.sort(squares, 0, count);
+            }
+            index = index * layout.numCombinations(table, group) + layout.rank(squares, count);
+        }
+        index = index * Bitboard.NUM_PLAYERS + (1 - position.player);
+        return Byte.toUnsignedInt(values[table][(int) index]);
+    }
+
+    /**
+     * A decoded position, with buffers for the positions after its moves
+     */
+    private class Position {
+        /**
+         * Group of the piece on each square, or -1
+         */
+        private final int[] board = new int[size * size];
+
+        /**
+         * Squares of each group in ascending order
+         */
+        private final int[][] squares = new int[TablebaseLayout.NUM_GROUPS][layout.getMaxPieces()];
+
+        private final int[] nextCounts = new int[TablebaseLayout.NUM_GROUPS];
+
+        private final int[] nextSquares = new int[layout.getMaxPieces()];
+
+        private int[] counts;
+
+        private int player;
+
+        /**
+         * @return whether the index is a position, i.e. no two pieces are on the same square
+         */
+        private boolean decode(int table, int index) {
+            Arrays.fill(board, -1);
+            counts = layout.getCounts(table);
+            player = index % Bitboard.NUM_PLAYERS;
+            long rest = index / Bitboard.NUM_PLAYERS;
+            for (int group = TablebaseLayout.NUM_GROUPS - 1; group >= 0; group--) {
+                var combinations = layout.numCombinations(table, group);
+                layout.unrank(rest % combinations, counts[group], squares[group]);
+                rest /= combinations;
+                for (int i = 0; i < counts[group]; i++) {
+                    var square = squares[group][i];
+                    if (board[square] >= 0) {
+                        return false;
+                    }
+                    board[square] = group;
+                }
+            }
+            return true;
+        }
+
+        private boolean isOccupiedBy(int square, int player) {
+            return board[square] >= 0 && board[square] / Bitboard.NUM_TYPES == player;
+        }
+    }
+
+    /**
+     * Statistics of one solved table, see {@link TablebaseGenerator#generate(int, Consumer)}
+     */
+    public static class TableResult {
+        private final String material;
+
+        private final long numPositions;
+
+        private final int longestDistance;
+
+        private final long elapsedNanos;
+
+        private TableResult(String material, long numPositions, int longestDistance, long elapsedNanos) {
+            this.material = material;
+            this.numPositions = numPositions;
+            this.longestDistance = longestDistance;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /* Getters start */
+
+        /**
+         * @return pieces of the table: K and A for the knights and archers of the first player, k and a for those of
+         * the second player
+         */
+        public String getMaterial() {
+            return material;
+        }
+
+        public long getNumPositions() {
+            return numPositions;
+        }
+
+        public int getLongestDistance() {
+            return longestDistance;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+        /* Getters end */
+    }
+
+    private static String describe(int[] counts) {
+        return "K".repeat(counts[0]) + "A".repeat(counts[1]) + "k".repeat(counts[2]) + "a".repeat(counts[3]);
+    }
+
+    public static void main(String[] args) throws IOException {
+        var helper = "usage: TablebaseGenerator <size> [maxPieces] [threads] [output]";
+        if (args.length < 1 || args.length > 4) {
+            throw new IllegalArgumentException(helper);
+        }
+        int size, maxPieces, numThreads;
+        try {
+            size = Integer.parseInt(args[0]);
+            maxPieces = args.length > 1 ? Integer.parseInt(args[1]) : (size <= 5 ? 4 : 3);
+            numThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(helper);
+        }
+        var output = args.length > 3 ? Path.of(args[3]) : Tablebase.DEFAULT_DIRECTORY.resolve(Tablebase.fileName(size));
+
+        var generator = new TablebaseGenerator(size, maxPieces);
+        var values = generator.generate(numThreads, table -> System.out.printf(
+                "table %s: %d positions; longest distance %d; %.3fs%n", table.getMaterial(), table.getNumPositions(),
+                table.getLongestDistance(), table.getElapsedNanos() / 1e9));
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        Tablebase.write(output, generator.layout, values);
+        System.out.printf("%d positions written to %s%n", generator.layout.getTotalPositions(), output);
+    }
+}
@@ -0,0 +1,105 @@
+package castle.comp3021.assignment.protocol;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import static castle.comp3021.assignment.tools.HeadlessGames.newGame;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link Game#unmakeMove()} must restore everything changed by {@link Game#makeMove(int)}, along random games. The
+ * incremental position key is also checked against {@link ZobristTest#computeKey(Game)} in every position made.
+ */
+class MakeUnmakeTest {
+    private static final int NUM_GAMES = 20;
+
+    /**
+     * Everything about a position that {@link Game#makeMove(int)} changes
+     */
+    private static final class Snapshot {
+        private final Piece[] pieces;
+        private final int[] counts;
+        private final int[] scores;
+        private final int numMoves;
+        private final long positionKey;
+
+        private Snapshot(Piece[] pieces, int[] counts, int[] scores, int numMoves, long positionKey) {
+            this.pieces = pieces;
+            this.counts = counts;
+            this.scores = scores;
+            this.numMoves = numMoves;
+            this.positionKey = positionKey;
+        }
+
+        static Snapshot of(Game game) {
+            var size = game.getConfiguration().getSize();
+            var pieces = new Piece[size * size];
+            for (int x = 0; x < size; x++) {
+                for (int y = 0; y < size; y++) {
+                    pieces[x * size + y] = game.getPiece(x, y);
+                }
+            }
+            var counts = new int[Bitboard.NUM_PLAYERS * Bitboard.NUM_TYPES];
+            for (int player = 0; player < Bitboard.NUM_PLAYERS; player++) {
+                for (int type = 0; type < Bitboard.NUM_TYPES; type++) {
+                    counts[player * Bitboard.NUM_TYPES + type] = game.getBitboard().count(player, type);
+                }
+            }
+            var scores = Arrays.stream(game.getConfiguration().getPlayers()).mapToInt(Player::getScore).toArray();
+            return new Snapshot(pieces, counts, scores, game.getNumMoves(), game.getPositionKey());
+        }
+
+        void assertRestored(Game game, int ply) {
+            var restored = Snapshot.of(game);
+            var message = "after unmaking down to ply " + ply;
+            assertArrayEquals(pieces, restored.pieces, message);
+            assertArrayEquals(counts, restored.counts, message);
+            assertArrayEquals(scores, restored.scores, message);
+            assertEquals(numMoves, restored.numMoves, message);
+            assertEquals(positionKey, restored.positionKey, message);
+        }
+    }
+
+    @ParameterizedTest(name = "size {0}, protection {1}")
+    @CsvSource({
+            "3, 0",
+            "5, 1",
+            "7, 3",
+            "9, 1",
+            "15, 5",
+    })
+    void unmakeRestoresPositionAlongRandomGames(int size, int numMovesProtection) {
+        var random = new Random(size * 31L + numMovesProtection);
+        for (int i = 0; i < NUM_GAMES; i++) {
+            var game = newGame(size, numMovesProtection);
+
+            var snapshots = new ArrayList<Snapshot>();
+            var moves = new IntMoveList();
+            for (int ply = 0; ply < 4 * size; ply++) {
+                game.getAvailableMoves(game.getCurrentPlayer(), moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                assertEquals(ZobristTest.computeKey(game), game.getPositionKey(), "after making ply " + ply);
+                snapshots.add(Snapshot.of(game));
+                var move = moves.get(random.nextInt(moves.size()));
+                game.makeMove(move);
+                if (game.getWinnerIndex(move) >= 0) {
+                    break;
+                }
+            }
+
+            assertEquals(ZobristTest.computeKey(game), game.getPositionKey(), "end of the game");
+            assertEquals(snapshots.size(), game.getUndoSize());
+            for (int ply = snapshots.size() - 1; ply >= 0; ply--) {
+                game.unmakeMove();
+                snapshots.get(ply).assertRestored(game, ply);
+            }
+        }
+    }
+}
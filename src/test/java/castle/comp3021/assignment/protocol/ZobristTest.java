@@ -0,0 +1,92 @@
+package castle.comp3021.assignment.protocol;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import static castle.comp3021.assignment.tools.HeadlessGames.newGame;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The position key maintained incrementally by {@link Game} must equal the key computed from scratch. Keys after
+ * {@link Game#makeMove(int)} and {@link Game#unmakeMove()} are checked along the random games of
+ * {@link MakeUnmakeTest}.
+ */
+class ZobristTest {
+    /**
+     * Compute the position key from the pieces on the board, the player to move and the number of moves left before
+     * capturing is allowed
+     */
+    static long computeKey(Game game) {
+        var size = game.getConfiguration().getSize();
+        var zobrist = Zobrist.forSize(size);
+        var key = 0L;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                var piece = game.getPiece(x, y);
+                if (piece != null) {
+                    key ^= zobrist.piece(x * size + y, game.getPlayerIndex(piece.getPlayer()), Bitboard.typeOf(piece));
+                }
+            }
+        }
+        if (game.getCurrentPlayerID() != 0) {
+            key ^= zobrist.sideToMove();
+        }
+        var movesLeft = game.getConfiguration().getNumMovesProtection() - game.getNumMoves();
+        if (movesLeft > 0) {
+            key ^= zobrist.protection(movesLeft);
+        }
+        return key;
+    }
+
+    @Test
+    void keyDependsOnMovesLeftBeforeCapturing() {
+        var zobrist = Zobrist.forSize(9);
+        var keys = new HashSet<Long>();
+        for (int movesLeft = 1; movesLeft <= 1000; movesLeft++) {
+            assertNotEquals(0L, zobrist.protection(movesLeft));
+            assertTrue(keys.add(zobrist.protection(movesLeft)), "moves left " + movesLeft);
+        }
+        assertEquals(0L, zobrist.protection(0));
+        assertEquals(0L, zobrist.protection(-3));
+
+        // the same pieces with the same player to move, 4 and 2 moves before capturing is allowed
+        var game = newGame(9, 5);
+        var key = game.getPositionKey();
+        var moves = new IntMoveList();
+        for (int ply = 0; ply < 2; ply++) {
+            game.getAvailableMoves(game.getCurrentPlayer(), moves);
+            var move = moves.get(0);
+            game.makeMove(move);
+            game.makeMove(PackedMove.of(PackedMove.destination(move), PackedMove.source(move)));
+        }
+        assertEquals(4, game.getNumMoves());
+        assertNotEquals(key, game.getPositionKey());
+    }
+
+    @ParameterizedTest(name = "size {0}, protection {1}")
+    @CsvSource({
+            "5, 1",
+            "9, 3",
+    })
+    void keyMatchesRecomputedKeyAfterPlayedMoves(int size, int numMovesProtection) {
+        var random = new Random(size * 31L + numMovesProtection);
+        var game = newGame(size, numMovesProtection);
+        for (int ply = 0; ply < 4 * size; ply++) {
+            var availableMoves = game.getAvailableMoves(game.getCurrentPlayer());
+            if (availableMoves.length == 0) {
+                break;
+            }
+            var winner = game.playMove(availableMoves[random.nextInt(availableMoves.length)]);
+            assertEquals(computeKey(game), game.getPositionKey(), "after playing ply " + ply);
+            if (winner != null) {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package castle.comp3021.assignment.protocol.io;
+
+import castle.comp3021.assignment.protocol.MoveRecord;
+import castle.comp3021.assignment.protocol.Place;
+import castle.comp3021.assignment.protocol.exception.InvalidConfigurationError;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Every fixture is parsed through both entry points, {@link Deserializer#parseGame()} and
+ * {@link Deserializer#parseGame(java.util.function.Consumer)}, which must agree. Places in move records must be read
+ * the same way as the central place, which is parsed from a string.
+ */
+class DeserializerTest {
+    private static String game(String centralPlace, String eol, String... moveRecords) {
+        var lines = new ArrayList<>(List.of("### FXJesonMor ###", "", "#Game setting", "size:9",
+                "numMovesProtection:1", "centralPlace:" + centralPlace, "numPlayers:2", "", "#Player info",
+                "#player1:", "name:White; score:3", "#player2:", "name:Black; score:5", "", "#Move records"));
+        lines.addAll(List.of(moveRecords));
+        lines.add("END");
+        return String.join(eol, lines) + eol;
+    }
+
+    /**
+     * Parse a file through both entry points
+     *
+     * @return the deserializer of {@link Deserializer#parseGame()}
+     */
+    private static Deserializer parseBoth(String content) throws IOException {
+        var path = Files.createTempFile("game", ".txt");
+        try {
+            Files.writeString(path, content, Charset.defaultCharset());
+            var collected = new Deserializer(path);
+            collected.parseGame();
+            var streamed = new ArrayList<MoveRecord>();
+            new Deserializer(path).parseGame(streamed::add);
+            assertEquals(collected.getMoveRecords(), streamed);
+            return collected;
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static void assertInvalid(String content) throws IOException {
+        var path = Files.createTempFile("game", ".txt");
+        try {
+            Files.writeString(path, content, Charset.defaultCharset());
+            assertThrows(InvalidConfigurationError.class, () -> new Deserializer(path).parseGame());
+            assertThrows(InvalidConfigurationError.class, () -> new Deserializer(path).parseGame(record -> {
+            }));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void parsesRecordsWrittenByMoveRecord() throws IOException {
+        var deserializer = parseBoth(game("(4,4)", "\n",
+                "Player:White; move:(0,0)->(2,1)", "", "# comment", "Player:Black; move:(8,8)->(6,7)"));
+        var records = deserializer.getMoveRecords();
+        assertEquals(2, records.size());
+        assertEquals("Player:White; move:(0,0)->(2,1)", records.get(0).toString());
+        assertEquals("Player:Black; move:(8,8)->(6,7)", records.get(1).toString());
+        var players = deserializer.getLoadedConfiguration().getPlayers();
+        assertSame(players[0], records.get(0).getPlayer());
+        assertSame(players[1], records.get(1).getPlayer());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"\n", "\r\n", "\r"})
+    void lineTerminatorsDoNotMatter(String eol) throws IOException {
+        var records = parseBoth(game("(4,4)", eol, "Player:White; move:(0,0)->(2,1)",
+                "Player:Black; move:(8,8)->(6,7)")).getMoveRecords();
+        assertEquals(List.of("Player:White; move:(0,0)->(2,1)", "Player:Black; move:(8,8)->(6,7)"),
+                records.stream().map(MoveRecord::toString).collect(Collectors.toList()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"(4,4)", " ( 4 , 4 ) ", "\t(4,\t4)", "(+4,4)", "((4,4))", "4,4", "(4,4", "(4),(4)"})
+    void placesAreReadLikeTheCentralPlace(String place) throws IOException {
+        var deserializer = parseBoth(game(place, "\n", "Player:White; move:" + place + "->" + place));
+        var centralPlace = deserializer.getLoadedCentralPlace();
+        assertEquals(Place.of(4, 4), centralPlace);
+        var move = deserializer.getMoveRecords().get(0).getMove();
+        assertEquals(centralPlace, move.getSource());
+        assertEquals(centralPlace, move.getDestination());
+    }
+
+    @Test
+    void unicodeWhitespaceIsStrippedLikeStrings() throws IOException {
+        assumeTrue(Charset.defaultCharset().newEncoder().canEncode("\u2003"), "default charset is not Unicode");
+        var deserializer = parseBoth(game("(4,4)", "\n", "\u2003",
+                "Player:\u2003White\u2003; move:\u2003(1,\u20032)\u2003->(3,4)\u2003"));
+        var record = deserializer.getMoveRecords().get(0);
+        assertSame(deserializer.getLoadedConfiguration().getPlayers()[0], record.getPlayer());
+        assertEquals("Player:White; move:(1,2)->(3,4)", record.toString());
+    }
+
+    @Test
+    void recordsOfOtherPlayersAreKept() throws IOException {
+        var record = parseBoth(game("(4,4)", "\n", "Player: Grey ; move:(1,2)->(3,4)")).getMoveRecords().get(0);
+        assertEquals("Grey", record.getPlayer().getName());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Player:White; move:(1,2)",
+            "Player:White; move:(a,2)->(3,4)",
+            "Player:White; move:(1,2)- >(3,4)",
+            "Player:White; move:(1,99999999999)->(3,4)",
+            "Player:White; move:(1,2,3)->(3,4)",
+            "Player:; move:(1,2)->(3,4)",
+            "Player:White move:(1,2)->(3,4)",
+            "Player:White;move:(1,2)->(3,4)",
+    })
+    void invalidRecordsAreRejected(String moveRecord) throws IOException {
+        assertInvalid(game("(4,4)", "\n", moveRecord));
+    }
+}
@@ -0,0 +1,27 @@
+package castle.comp3021.assignment.tools;
+
+import castle.comp3021.assignment.player.RandomPlayer;
+import castle.comp3021.assignment.protocol.Configuration;
+import castle.comp3021.assignment.protocol.Player;
+
+/**
+ * Games from the initial position shared by the tests of the rules
+ */
+public final class HeadlessGames {
+    private HeadlessGames() {
+    }
+
+    /**
+     * Create a game in the initial position of {@link Configuration#setAllInitialPieces()}, without a move limit
+     *
+     * @param size               size of the gameboard
+     * @param numMovesProtection number of moves before capturing is allowed
+     * @return the game
+     */
+    public static HeadlessJesonMor newGame(int size, int numMovesProtection) {
+        var configuration = new Configuration(size,
+                new Player[]{new RandomPlayer("White"), new RandomPlayer("Black")}, numMovesProtection);
+        configuration.setAllInitialPieces();
+        return new HeadlessJesonMor(configuration, HeadlessJesonMor.NO_MOVE_LIMIT);
+    }
+}
@@ -0,0 +1,51 @@
+package castle.comp3021.assignment.tools;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static castle.comp3021.assignment.tools.HeadlessGames.newGame;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Perft counts from the initial position, as a regression test of move generation.
+ * <p>
+ * The reference counts were computed with the original implementation of the rules, which generated moves with
+ * {@code getAvailableMoves(Player)} and made them with {@code movePiece(Move)} on copies of the game.
+ */
+class PerftTest {
+    @ParameterizedTest(name = "size {0}, protection {1}, depth {2}")
+    @CsvSource({
+            "3, 0, 8, 750",
+            "3, 1, 8, 566",
+            "3, 3, 8, 562",
+            "5, 0, 5, 146352",
+            "5, 1, 5, 146352",
+            "5, 3, 5, 108616",
+            "7, 0, 4, 218515",
+            "7, 1, 4, 218515",
+            "7, 3, 4, 207901",
+            "9, 0, 4, 1794478",
+            "9, 1, 4, 1794478",
+            "9, 3, 4, 1753100",
+    })
+    void countMatchesReference(int size, int numMovesProtection, int depth, long nodes) {
+        var game = newGame(size, numMovesProtection);
+        var key = game.getPositionKey();
+        assertEquals(nodes, new Perft().count(game, depth));
+        assertEquals(key, game.getPositionKey(), "the game must be restored after counting");
+    }
+
+    @ParameterizedTest(name = "size {0}, protection {1}, depth {2}")
+    @CsvSource({
+            "3, 1, 1, 1",
+            "3, 3, 4, 12",
+            "5, 3, 3, 694",
+            "7, 3, 3, 8862",
+            "9, 3, 3, 45662",
+    })
+    void divideSumsToReference(int size, int numMovesProtection, int depth, long nodes) {
+        var result = Perft.divide(newGame(size, numMovesProtection), depth, 2);
+        assertEquals(nodes, result.getNodes());
+        assertEquals(nodes, result.getCounts().values().stream().mapToLong(Long::longValue).sum());
+    }
+}